@@ -0,0 +1,69 @@
+package a2u.tn.utils.json;
+
+/**
+ * Source with all data in memory: String, StringBuilder, CharBuffer and so on.
+ */
+final class CharSequenceSource extends JsonSource {
+
+  private final CharSequence content;
+  private final int length;
+
+
+  CharSequenceSource(CharSequence content) {
+    this.content = content;
+    this.length = content.length();
+  }
+
+
+  @Override
+  boolean has(long index) {
+    return index < length;
+  }
+
+  @Override
+  char charAt(long index) {
+    if (index >= length) {
+      return END;
+    }
+    return content.charAt((int) index);
+  }
+
+  @Override
+  long readyEnd(long from) {
+    return length;
+  }
+
+  @Override
+  long scanString(long from, char terminator) {
+    int i = (int) from;
+    while (i < length) {
+      char c = content.charAt(i);
+      if (c == terminator || c == '\\') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  @Override
+  void append(StringBuilder b, long start, long end) {
+    if (end > start) {
+      b.append(content, (int) start, (int) end);
+    }
+  }
+
+  @Override
+  CharSequence view(long start, long end) {
+    if (!(content instanceof String)) {
+      return null; // mutable content can be changed after parsing
+    }
+    return new StringView(content, (int) start, (int) end);
+  }
+
+  @Override
+  JsonSource share() {
+    return this;
+  }
+
+}
@@ -0,0 +1,434 @@
+package a2u.tn.utils.json;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Map, which keeps keys and values in two arrays in the order of insertion, like the LinkedHashMap without entry objects.<br>
+ * Small maps are searched by a linear scan of keys. When a map grows over INDEX_THRESHOLD keys,
+ * it creates a hash index with positions of keys, so big maps are searched as fast as the HashMap.
+ * <br>
+ * This is the default type of parsed json-objects. Its iteration order is the order of keys in json,
+ * and it can be changed like the LinkedHashMap, but it is not thread-safe.
+ * Removing of a key moves the following keys, so it is slower than in the LinkedHashMap.
+ * <br>
+ * Maps with the same keys in the same order can share one array of keys and one hash index,
+ * then every map keeps only its values. Shared arrays are copied by the first adding or removing of a key.
+ * @see IGetCollection#forObject(String)
+ */
+public final class CompactMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Maps with more keys use the hash index
+   */
+  public static final int INDEX_THRESHOLD = 8;
+
+  private static final Object[] EMPTY = new Object[0];
+  private static final int MIN_CAPACITY = 4;
+
+  private Object[] keys = EMPTY;
+  private Object[] values = EMPTY;
+  private int size;
+  private int[] index;    // hash table with positions of keys plus one, 0 is an empty slot
+  private boolean isShared;  // keys and index are shared with other maps, and must be copied before changing
+
+  private transient int modCount;
+  private transient Set<Entry<K, V>> entrySet;
+
+
+  /**
+   * Create empty map
+   */
+  public CompactMap() {
+    //empty
+  }
+
+  /**
+   * Create map with the same mappings as the specified map, in the order of its iteration
+   * @param map source map
+   */
+  public CompactMap(Map<? extends K, ? extends V> map) {
+    ensureCapacity(map.size());
+    putAll(map);
+  }
+
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    int i = indexOf(key);
+    return i >= 0 ? (V) values[i] : null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V put(K key, V value) {
+    int i = indexOf(key);
+    if (i >= 0) {
+      V old = (V) values[i];
+      values[i] = value;
+      return old;
+    }
+    unshare();
+    ensureCapacity(size + 1);
+    keys[size] = key;
+    values[size] = value;
+    size++;
+    modCount++;
+    if (index != null) {
+      addToIndex(size - 1);
+    }
+    else if (size > INDEX_THRESHOLD) {
+      rebuildIndex();
+    }
+    return null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V remove(Object key) {
+    int i = indexOf(key);
+    if (i < 0) {
+      return null;
+    }
+    V old = (V) values[i];
+    removeAt(i);
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    keys = EMPTY;
+    values = EMPTY;
+    size = 0;
+    index = null;
+    isShared = false;
+    modCount++;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    int expected = modCount;
+    for (int i = 0; i < size; i++) {
+      action.accept((K) keys[i], (V) values[i]);
+    }
+    if (expected != modCount) {
+      throw new ConcurrentModificationException();
+    }
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  /**
+   * Trim the capacity of arrays to the count of keys, like the ArrayList.trimToSize() does
+   */
+  public void trimToSize() {
+    if (values.length > size) {
+      unshare();
+      keys = size == 0 ? EMPTY : Arrays.copyOf(keys, size);
+      values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+    }
+  }
+
+  /**
+   * @return array of keys, its length can be greater than size
+   */
+  Object[] keyArray() {
+    return keys;
+  }
+
+  /**
+   * @return hash index, or null for a small map
+   */
+  int[] indexArray() {
+    return index;
+  }
+
+  /**
+   * Use the shared array of keys and hash index. They must contain the same keys in the same order,
+   * and must not be changed by anyone later.
+   * @param sharedKeys keys of this map, with length equal to size
+   * @param sharedIndex hash index for these keys, or null for a small map
+   */
+  void share(Object[] sharedKeys, int[] sharedIndex) {
+    keys = sharedKeys;
+    index = sharedIndex;
+    isShared = true;
+  }
+
+
+  /**
+   * @return position of the key, or -1
+   */
+  private int indexOf(Object key) {
+    Object[] k = keys;
+    if (index == null) {
+      if (key == null) {
+        for (int i = 0; i < size; i++) {
+          if (k[i] == null) {
+            return i;
+          }
+        }
+        return -1;
+      }
+      for (int i = 0; i < size; i++) {
+        Object other = k[i];
+        if (other == key || key.equals(other)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    int[] table = index;
+    int mask = table.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      int position = table[slot];
+      if (position == 0) {
+        return -1;
+      }
+      Object other = k[position - 1];
+      if (other == key || (key != null && key.equals(other))) {
+        return position - 1;
+      }
+    }
+  }
+
+  private void removeAt(int i) {
+    unshare();
+    int count = size - i - 1;
+    System.arraycopy(keys, i + 1, keys, i, count);
+    System.arraycopy(values, i + 1, values, i, count);
+    size--;
+    keys[size] = null;
+    values[size] = null;
+    modCount++;
+    if (index != null) {
+      rebuildIndex();
+    }
+  }
+
+  /**
+   * Copy shared arrays before changing of keys
+   */
+  private void unshare() {
+    if (isShared) {
+      keys = keys.clone();
+      index = index == null ? null : index.clone();
+      isShared = false;
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    int length = keys.length;
+    if (capacity > length) {
+      int newLength = Math.max(Math.max(capacity, MIN_CAPACITY), length + (length >> 1));
+      keys = Arrays.copyOf(keys, newLength);
+      values = Arrays.copyOf(values, newLength);
+    }
+  }
+
+  /**
+   * Create hash index with size as a power of two, filled not more than by half
+   */
+  private void rebuildIndex() {
+    if (size <= INDEX_THRESHOLD) {
+      index = null;
+      return;
+    }
+    index = new int[Integer.highestOneBit(size) << 2];
+    for (int i = 0; i < size; i++) {
+      addToIndex(i);
+    }
+  }
+
+  private void addToIndex(int position) {
+    int[] table = index;
+    if (size * 2 > table.length) {
+      rebuildIndex();
+      return;
+    }
+    int mask = table.length - 1;
+    int slot = hash(keys[position]) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = position + 1;
+  }
+
+  private static int hash(Object key) {
+    if (key == null) {
+      return 0;
+    }
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void clear() {
+      CompactMap.this.clear();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      int i = indexOf(entry.getKey());
+      return i >= 0 && Objects.equals(values[i], entry.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!contains(o)) {
+        return false;
+      }
+      removeAt(indexOf(((Entry<?, ?>) o).getKey()));
+      return true;
+    }
+  }
+
+
+  private final class EntryIterator implements Iterator<Entry<K, V>> {
+    private int next;
+    private int last = -1;
+    private int expected = modCount;
+
+    @Override
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<K, V> next() {
+      if (expected != modCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (next >= size) {
+        throw new NoSuchElementException();
+      }
+      last = next++;
+      return new MapEntry((K) keys[last], last);
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      if (expected != modCount) {
+        throw new ConcurrentModificationException();
+      }
+      removeAt(last);
+      next = last;
+      last = -1;
+      expected = modCount;
+    }
+  }
+
+
+  /**
+   * Entry, which reads and writes arrays of the map.<br>
+   * It keeps the position of its key, and finds the key again if keys were moved by removing.
+   */
+  private final class MapEntry implements Entry<K, V> {
+    private final K key;
+    private final int position;
+
+    MapEntry(K key, int position) {
+      this.key = key;
+      this.position = position;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getValue() {
+      int i = position();
+      return i >= 0 ? (V) values[i] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V setValue(V value) {
+      int i = position();
+      if (i < 0) {
+        throw new IllegalStateException("Key '" + key + "' was removed from the map.");
+      }
+      V old = (V) values[i];
+      values[i] = value;
+      return old;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return Objects.equals(key, entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + getValue();
+    }
+
+    private int position() {
+      return position < size && keys[position] == key ? position : indexOf(key);
+    }
+  }
+
+}
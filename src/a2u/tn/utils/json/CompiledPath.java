@@ -0,0 +1,88 @@
+package a2u.tn.utils.json;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path for MapNavigator, which is split to keys only once.<br>
+ * Keys for elements of lists are parsed to numbers in advance.
+ * This object is immutable, so it can be used by many threads.
+ * <pre>
+ * private static final CompiledPath ID = MapNavigator.compile("data.items.0.id");
+ * ...
+ * Object id = ID.fromMap(map);
+ * </pre>
+ *
+ * @see MapNavigator#compile(String)
+ */
+public final class CompiledPath {
+
+  private static final int NOT_INDEX = Integer.MIN_VALUE;
+
+  private final String path;
+  private final String[] keys;
+  private final int[] indexes;  // keys as indexes of list, or NOT_INDEX
+
+
+  CompiledPath(String path) {
+    this.path = path;
+    this.keys = path.split("\\.");
+    this.indexes = new int[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      try {
+        indexes[i] = Integer.parseInt(keys[i]);
+      }
+      catch (NumberFormatException ex) {
+        indexes[i] = NOT_INDEX;
+      }
+    }
+  }
+
+
+  /**
+   * Find value from map by this path, the same as MapNavigator.fromPath()
+   * @param map map with values
+   * @return value
+   * @see MapNavigator#fromPath(Map, String)
+   */
+  public Object fromMap(Map map) {
+    Object res = map;
+    for (int i = 0; i < keys.length; i++) {
+      if (res == null) {
+        return null;
+      }
+      if (res instanceof Map) {
+        res = ((Map) res).get(keys[i]);
+      }
+      else if (res instanceof List) {
+        int ix = indexes[i];
+        if (ix == NOT_INDEX) {
+          ix = Integer.parseInt(keys[i]); // throws NumberFormatException as usual
+        }
+        res = ((List) res).get(ix);
+      }
+      else {
+        StringBuilder node = new StringBuilder();
+        for (int k = 0; k < i; k++) {
+          node.append(".").append(keys[k]);
+        }
+        throw new RuntimeException("Incorrect path: node=" + node.toString() + " is not a Map or List.");
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Source path
+   * @return path with string-keys and dot as separator
+   */
+  public String getPath() {
+    return path;
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+}
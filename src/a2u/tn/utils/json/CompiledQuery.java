@@ -0,0 +1,566 @@
+package a2u.tn.utils.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query for selecting values from Map represented object, similar to JSONPath.<br>
+ * Query is compiled only once, and is immutable, so it can be used by many threads.
+ * <table>
+ *   <caption>Syntax</caption>
+ *   <tr><td>key, .key, ['key']</td> <td>value by key; for a list a number is an index, as in MapNavigator</td></tr>
+ *   <tr><td>*, [*]</td> <td>all values of object or elements of list</td></tr>
+ *   <tr><td>..key, ..*, ..[0]</td> <td>recursive descent: the next step is applied to this value and all nested objects and lists</td></tr>
+ *   <tr><td>[2], [-1]</td> <td>element of list, negative index counts from the end</td></tr>
+ *   <tr><td>[1:3], [:2], [-2:], [0:10:2]</td> <td>slice of list: start inclusive, end exclusive, step</td></tr>
+ *   <tr><td>[?(@.price &lt; 10)]</td> <td>elements of list or values of object, which satisfy the condition:
+ *                                         ==, !=, &lt;, &lt;=, &gt;, &gt;=  with number, 'string', true, false or null,
+ *                                         or [?(@.key)] for existence of key</td></tr>
+ * </table>
+ * Query may start with "$", which means the root object.
+ * <pre>
+ * private static final CompiledQuery PRICES = MapNavigator.compileQuery("items[?(@.count &gt; 0)].price");
+ * ...
+ * List&lt;Object&gt; prices = PRICES.select(map);
+ * </pre>
+ *
+ * @see MapNavigator#compileQuery(String)
+ */
+public final class CompiledQuery {
+
+  private final String query;
+  private final Step[] steps;
+
+
+  CompiledQuery(String query) {
+    this.query = query;
+    this.steps = new Compiler(query).compile();
+  }
+
+
+  /**
+   * Select all values by this query
+   * @param data Map or List
+   * @return found values in the order of the data, or empty list
+   */
+  public List<Object> select(Object data) {
+    List<Object> current = Collections.singletonList(data);
+    for (Step step : steps) {
+      List<Object> next = new ArrayList<>();
+      for (Object node : current) {
+        step.apply(node, next);
+      }
+      if (next.isEmpty()) {
+        return next;
+      }
+      current = next;
+    }
+    return current instanceof ArrayList ? current : new ArrayList<>(current);
+  }
+
+  /**
+   * Select the first value by this query
+   * @param data Map or List
+   * @return first found value, or null if nothing is found
+   */
+  public Object selectFirst(Object data) {
+    List<Object> values = select(data);
+    return values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * Source query
+   * @return query
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  @Override
+  public String toString() {
+    return query;
+  }
+
+
+  /**
+   * One step of query: converts a value to found values
+   */
+  private abstract static class Step {
+    abstract void apply(Object node, List<Object> out);
+  }
+
+  private static final class KeyStep extends Step {
+    private final String key;
+    private final int index;  // key as index of list, or -1
+
+    KeyStep(String key) {
+      this.key = key;
+      this.index = toIndex(key);
+    }
+
+    @Override
+    void apply(Object node, List<Object> out) {
+      if (node instanceof Map) {
+        Map map = (Map) node;
+        Object value = map.get(key);
+        if (value != null || map.containsKey(key)) {
+          out.add(value);
+        }
+      }
+      else if (node instanceof List && index >= 0) {
+        List list = (List) node;
+        if (index < list.size()) {
+          out.add(list.get(index));
+        }
+      }
+    }
+  }
+
+  private static final class WildcardStep extends Step {
+    @Override
+    void apply(Object node, List<Object> out) {
+      if (node instanceof Map) {
+        out.addAll(((Map<?, ?>) node).values());
+      }
+      else if (node instanceof Collection) {
+        out.addAll((Collection<?>) node);
+      }
+    }
+  }
+
+  private static final class DescendantsStep extends Step {
+    /**
+     * Add the node and all nested objects and lists in pre-order, by a loop without recursion
+     */
+    @Override
+    void apply(Object node, List<Object> out) {
+      Deque<Object> stack = new ArrayDeque<>();
+      List<Object> children = new ArrayList<>();
+      if (isContainer(node)) {
+        stack.push(node);
+      }
+      while (!stack.isEmpty()) {
+        Object next = stack.pop();
+        out.add(next);
+        children.clear();
+        for (Object child : next instanceof Map ? ((Map<?, ?>) next).values() : (Collection<?>) next) {
+          if (isContainer(child)) {
+            children.add(child);
+          }
+        }
+        for (int i = children.size() - 1; i >= 0; i--) {
+          stack.push(children.get(i));
+        }
+      }
+    }
+
+    private static boolean isContainer(Object node) {
+      return node instanceof Map || node instanceof Collection;
+    }
+  }
+
+  private static final class SliceStep extends Step {
+    private final Integer start;  // null for begin of list
+    private final Integer end;    // null for end of list
+    private final int step;
+
+    SliceStep(Integer start, Integer end, int step) {
+      this.start = start;
+      this.end = end;
+      this.step = step;
+    }
+
+    @Override
+    void apply(Object node, List<Object> out) {
+      if (!(node instanceof List)) {
+        return;
+      }
+      List list = (List) node;
+      int size = list.size();
+      int from = start == null ? 0 : position(start, size);
+      int to = end == null ? size : position(end, size);
+      for (long i = from; i < to; i += step) {  // long, so a big step doesn't overflow
+        out.add(list.get((int) i));
+      }
+    }
+
+    private static int position(int index, int size) {
+      int i = index < 0 ? size + index : index;
+      return Math.max(0, Math.min(i, size));
+    }
+  }
+
+  private static final class IndexStep extends Step {
+    private final int index;
+
+    IndexStep(int index) {
+      this.index = index;
+    }
+
+    @Override
+    void apply(Object node, List<Object> out) {
+      if (!(node instanceof List)) {
+        return;
+      }
+      List list = (List) node;
+      int i = index < 0 ? list.size() + index : index;
+      if (i >= 0 && i < list.size()) {
+        out.add(list.get(i));
+      }
+    }
+  }
+
+  private static final class FilterStep extends Step {
+    private static final Object MISSING = new Object();
+
+    private final String[] path;    // keys after '@'
+    private final String operator;  // null for existence check
+    private final Object value;
+
+    FilterStep(String[] path, String operator, Object value) {
+      this.path = path;
+      this.operator = operator;
+      this.value = value;
+    }
+
+    @Override
+    void apply(Object node, List<Object> out) {
+      Collection children;
+      if (node instanceof Map) {
+        children = ((Map) node).values();
+      }
+      else if (node instanceof Collection) {
+        children = (Collection) node;
+      }
+      else {
+        return;
+      }
+      for (Object child : children) {
+        if (test(child)) {
+          out.add(child);
+        }
+      }
+    }
+
+    private boolean test(Object node) {
+      Object actual = node;
+      for (String key : path) {
+        if (actual instanceof Map && ((Map) actual).containsKey(key)) {
+          actual = ((Map) actual).get(key);
+        }
+        else if (actual instanceof List && toIndex(key) >= 0 && toIndex(key) < ((List) actual).size()) {
+          actual = ((List) actual).get(toIndex(key));
+        }
+        else {
+          return false;
+        }
+      }
+      if (operator == null) {
+        return true;
+      }
+
+      switch (operator) {
+        case "==": return isEqual(actual, value);
+        case "!=": return !isEqual(actual, value);
+        default:
+      }
+      Integer cmp = compare(actual, value);
+      if (cmp == null) {
+        return false;
+      }
+      switch (operator) {
+        case "<":  return cmp < 0;
+        case "<=": return cmp <= 0;
+        case ">":  return cmp > 0;
+        default:   return cmp >= 0;
+      }
+    }
+
+    private static boolean isEqual(Object a, Object b) {
+      if (a == null || b == null) {
+        return a == b;
+      }
+      Integer cmp = compare(a, b);
+      return cmp != null ? cmp == 0 : a.equals(b);
+    }
+
+    /**
+     * @return result of comparison, or null if values are not comparable
+     */
+    private static Integer compare(Object a, Object b) {
+      if (a instanceof Number && b instanceof Number) {
+        if (isIntegral(a) && isIntegral(b)) {
+          return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+        }
+        if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+          return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+      }
+      if (a instanceof CharSequence && b instanceof CharSequence) {
+        return a.toString().compareTo(b.toString());
+      }
+      return null;
+    }
+
+    private static boolean isIntegral(Object n) {
+      return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+    }
+  }
+
+
+  /**
+   * Convert text of query to steps
+   */
+  private static final class Compiler {
+    private final String query;
+    private final List<Step> steps = new ArrayList<>();
+    private int pos;
+
+    Compiler(String query) {
+      this.query = query;
+    }
+
+    Step[] compile() {
+      if (query.startsWith("$")) {
+        pos = 1;
+      }
+      boolean first = true;
+      while (pos < query.length()) {
+        char c = query.charAt(pos);
+        if (c == '.') {
+          pos++;
+          if (pos < query.length() && query.charAt(pos) == '.') {
+            pos++;
+            steps.add(new DescendantsStep());
+            if (pos < query.length() && query.charAt(pos) == '[') {
+              continue;
+            }
+          }
+          parseName();
+        }
+        else if (c == '[') {
+          parseBracket();
+        }
+        else if (first) {
+          parseName();
+        }
+        else {
+          throw error("expected '.' or '['");
+        }
+        first = false;
+      }
+      return steps.toArray(new Step[0]);
+    }
+
+    private void parseName() {
+      int start = pos;
+      while (pos < query.length() && query.charAt(pos) != '.' && query.charAt(pos) != '[') {
+        pos++;
+      }
+      if (start == pos) {
+        throw error("expected key");
+      }
+      String name = query.substring(start, pos);
+      steps.add(name.equals("*") ? new WildcardStep() : new KeyStep(name));
+    }
+
+    private void parseBracket() {
+      pos++;
+      skipSpaces();
+      char c = peek();
+      if (c == '*') {
+        pos++;
+        steps.add(new WildcardStep());
+      }
+      else if (c == '\'' || c == '"') {
+        steps.add(new KeyStep(parseQuoted()));
+      }
+      else if (c == '?') {
+        pos++;
+        skipSpaces();
+        expect('(');
+        parseFilter();
+        skipSpaces();
+        expect(')');
+      }
+      else {
+        int start = pos;
+        while (pos < query.length() && query.charAt(pos) != ']') {
+          pos++;
+        }
+        String content = query.substring(start, pos).trim();
+        try {
+          if (content.indexOf(':') >= 0) {
+            String[] parts = content.split(":", -1);
+            if (parts.length > 3) {
+              throw error("invalid slice");
+            }
+            int step = parts.length == 3 && !parts[2].trim().isEmpty() ? Integer.parseInt(parts[2].trim()) : 1;
+            if (step <= 0) {
+              throw error("step of slice must be positive");
+            }
+            steps.add(new SliceStep(toInteger(parts[0]), toInteger(parts[1]), step));
+          }
+          else {
+            steps.add(new IndexStep(Integer.parseInt(content)));
+          }
+        }
+        catch (NumberFormatException ex) {
+          throw error("expected index, slice, '*', quoted key or filter");
+        }
+      }
+      skipSpaces();
+      expect(']');
+    }
+
+    private void parseFilter() {
+      skipSpaces();
+      expect('@');
+      List<String> path = new ArrayList<>();
+      while (peek() == '.' || peek() == '[') {
+        if (peek() == '.') {
+          pos++;
+          int start = pos;
+          while (pos < query.length() && (Character.isLetterOrDigit(query.charAt(pos)) || query.charAt(pos) == '_' || query.charAt(pos) == '-')) {
+            pos++;
+          }
+          if (start == pos) {
+            throw error("expected key");
+          }
+          path.add(query.substring(start, pos));
+        }
+        else {
+          pos++;
+          skipSpaces();
+          if (peek() == '\'' || peek() == '"') {
+            path.add(parseQuoted());
+          }
+          else {
+            int start = pos;
+            while (pos < query.length() && Character.isDigit(query.charAt(pos))) {
+              pos++;
+            }
+            if (start == pos) {
+              throw error("expected index or quoted key");
+            }
+            path.add(query.substring(start, pos));
+          }
+          skipSpaces();
+          expect(']');
+        }
+      }
+
+      skipSpaces();
+      String operator = null;
+      Object value = null;
+      for (String op : new String[] {"==", "!=", "<=", ">=", "<", ">"}) {
+        if (query.startsWith(op, pos)) {
+          operator = op;
+          pos += op.length();
+          break;
+        }
+      }
+      if (operator != null) {
+        skipSpaces();
+        value = parseValue();
+      }
+      steps.add(new FilterStep(path.toArray(new String[0]), operator, value));
+    }
+
+    private Object parseValue() {
+      char c = peek();
+      if (c == '\'' || c == '"') {
+        return parseQuoted();
+      }
+      int start = pos;
+      while (pos < query.length() && query.charAt(pos) != ')' && query.charAt(pos) != ' ') {
+        pos++;
+      }
+      String literal = query.substring(start, pos);
+      switch (literal) {
+        case "true":  return true;
+        case "false": return false;
+        case "null":  return null;
+        default:
+      }
+      try {
+        if (literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0) {
+          return Double.parseDouble(literal);
+        }
+        return new BigInteger(literal).bitLength() < 64 ? (Object) Long.parseLong(literal) : new BigInteger(literal);
+      }
+      catch (NumberFormatException ex) {
+        pos = start;
+        throw error("expected number, quoted string, true, false or null");
+      }
+    }
+
+    private String parseQuoted() {
+      char quote = query.charAt(pos);
+      pos++;
+      StringBuilder b = new StringBuilder();
+      while (pos < query.length() && query.charAt(pos) != quote) {
+        char c = query.charAt(pos);
+        if (c == '\\' && pos + 1 < query.length()) {
+          pos++;
+          c = query.charAt(pos);
+        }
+        b.append(c);
+        pos++;
+      }
+      expect(quote);
+      return b.toString();
+    }
+
+    private Integer toInteger(String text) {
+      String t = text.trim();
+      return t.isEmpty() ? null : Integer.valueOf(t);
+    }
+
+    private char peek() {
+      return pos < query.length() ? query.charAt(pos) : 0;
+    }
+
+    private void skipSpaces() {
+      while (pos < query.length() && query.charAt(pos) == ' ') {
+        pos++;
+      }
+    }
+
+    private void expect(char c) {
+      if (peek() != c) {
+        throw error("expected '" + c + "'");
+      }
+      pos++;
+    }
+
+    private IllegalArgumentException error(String expected) {
+      return new IllegalArgumentException("Invalid query '" + query + "' at position " + pos + ", " + expected + ".");
+    }
+  }
+
+  /**
+   * @return index of list element, or -1 if key is not a number
+   */
+  private static int toIndex(String key) {
+    if (key.isEmpty() || key.length() > 9) {
+      return -1;
+    }
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+    }
+    return Integer.parseInt(key);
+  }
+
+}
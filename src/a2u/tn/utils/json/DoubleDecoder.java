@@ -0,0 +1,172 @@
+package a2u.tn.utils.json;
+
+import java.math.BigInteger;
+
+/**
+ * Conversion of decimal mantissa and exponent to double without creating of strings.<br>
+ * Uses Clinger's fast path for exact values, and Eisel-Lemire algorithm for other values.
+ * When result can not be computed exactly, returns null, and the value must be parsed by Double.parseDouble().<br>
+ * Result is always the same as from Double.parseDouble().
+ * <br>
+ * See Daniel Lemire, "Number Parsing at a Gigabyte per Second", and library fast_float.
+ */
+final class DoubleDecoder {
+
+  private static final int MIN_POWER = -342;
+  private static final int MAX_POWER = 308;
+
+  private static final int MANTISSA_BITS = 52;
+  private static final int MIN_EXPONENT = -1023;
+  private static final int INFINITE_POWER = 0x7FF;
+
+  private static final double[] EXACT_POWERS = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+    1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * 128-bit approximations of powers of five from 5^MIN_POWER to 5^MAX_POWER, two longs per power: high and low bits.
+   */
+  private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+
+  private DoubleDecoder() {
+    //hide this
+  }
+
+
+  /**
+   * Compute value mantissa * 10^exponent.
+   * @param negative sign of value
+   * @param mantissa decimal digits of value without leading zeros, not more than 19 digits
+   * @param exponent decimal exponent
+   * @return value, or null if value must be parsed by Double.parseDouble()
+   */
+  static Double decode(boolean negative, long mantissa, int exponent) {
+    if (mantissa == 0 || exponent < MIN_POWER) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (exponent > MAX_POWER) {
+      return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+
+    // Clinger: both mantissa and power of ten are exact doubles, so result of one operation is rounded correctly
+    if (exponent >= -22 && exponent <= 22 && mantissa >= 0 && mantissa <= (1L << 53)) {
+      double value = (double) mantissa;
+      value = exponent < 0 ? value / EXACT_POWERS[-exponent] : value * EXACT_POWERS[exponent];
+      return negative ? -value : value;
+    }
+
+    long bits = eiselLemire(mantissa, exponent);
+    if (bits < 0) {
+      return null;
+    }
+    double value = Double.longBitsToDouble(bits);
+    return negative ? -value : value;
+  }
+
+  /**
+   * @return bits of the positive double, or -1 if value can not be computed exactly
+   */
+  private static long eiselLemire(long w, int q) {
+    int lz = Long.numberOfLeadingZeros(w);
+    w <<= lz;
+
+    int index = 2 * (q - MIN_POWER);
+    long high = multiplyHigh(w, POWERS_OF_FIVE[index]);
+    long low = w * POWERS_OF_FIVE[index];
+    long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> (MANTISSA_BITS + 3);
+    if ((high & precisionMask) == precisionMask) {
+      // not enough of 64 bits of the power, use next 64 bits
+      long secondHigh = multiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+      low += secondHigh;
+      if (Long.compareUnsigned(secondHigh, low) > 0) {
+        high++;
+      }
+    }
+    if (low == 0xFFFFFFFFFFFFFFFFL && (q < -27 || q > 55)) {
+      return -1;
+    }
+
+    int upperBit = (int) (high >>> 63);
+    long mantissa = high >>> (upperBit + 64 - MANTISSA_BITS - 3);
+    int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperBit - lz - MIN_EXPONENT;
+
+    if (power2 <= 0) {
+      // subnormal value
+      if (-power2 + 1 >= 64) {
+        return 0;
+      }
+      mantissa >>>= -power2 + 1;
+      mantissa += mantissa & 1;
+      mantissa >>>= 1;
+      power2 = mantissa < (1L << MANTISSA_BITS) ? 0 : 1;
+      return mantissa | ((long) power2 << MANTISSA_BITS);
+    }
+
+    // value exactly between two doubles, round to even
+    if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+        && (mantissa << (upperBit + 64 - MANTISSA_BITS - 3)) == high) {
+      mantissa &= ~1L;
+    }
+
+    mantissa += mantissa & 1;
+    mantissa >>>= 1;
+    if (mantissa >= (2L << MANTISSA_BITS)) {
+      mantissa = 1L << MANTISSA_BITS;
+      power2++;
+    }
+    mantissa &= ~(1L << MANTISSA_BITS);
+    if (power2 >= INFINITE_POWER) {
+      return (long) INFINITE_POWER << MANTISSA_BITS;
+    }
+    return mantissa | ((long) power2 << MANTISSA_BITS);
+  }
+
+  /**
+   * High 64 bits of unsigned 128-bit product
+   */
+  private static long multiplyHigh(long a, long b) {
+    long aLow = a & 0xFFFFFFFFL;
+    long aHigh = a >>> 32;
+    long bLow = b & 0xFFFFFFFFL;
+    long bHigh = b >>> 32;
+
+    long lowLow = aLow * bLow;
+    long highLow = aHigh * bLow;
+    long lowHigh = aLow * bHigh;
+    long highHigh = aHigh * bHigh;
+
+    long middle = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + (lowHigh & 0xFFFFFFFFL);
+    return highHigh + (highLow >>> 32) + (lowHigh >>> 32) + (middle >>> 32);
+  }
+
+  private static long[] powersOfFive() {
+    long[] table = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+    BigInteger five = BigInteger.valueOf(5);
+    BigInteger min128 = BigInteger.ONE.shiftLeft(127);
+    int i = 0;
+    for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+      BigInteger value;
+      if (q < 0) {
+        BigInteger power = five.pow(-q);
+        int z = power.subtract(BigInteger.ONE).bitLength(); // smallest z with 2^z >= power
+        int b = q >= -27 ? z + 127 : 2 * z + 128;
+        value = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+      }
+      else {
+        value = five.pow(q);
+      }
+      // move the most significant bit to the position 127, truncate lower bits
+      int shift = value.bitLength() - 128;
+      value = shift > 0 ? value.shiftRight(shift) : value.shiftLeft(-shift);
+      if (value.compareTo(min128) < 0) {
+        value = value.shiftLeft(1);
+      }
+      table[i++] = value.shiftRight(64).longValue();
+      table[i++] = value.longValue();
+    }
+    return table;
+  }
+
+}
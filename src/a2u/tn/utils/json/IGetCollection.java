@@ -19,7 +19,8 @@ public interface IGetCollection {
 
   /**
    * This methow will be called when parcer need create new map.<br>
-   * If this method returns null, then map will be created with the default type - LinkedHashMap.
+   * If this method returns null, then map will be created with the default type - CompactMap.
+   * For using LinkedHashMap as in previous versions, this method can return new LinkedHashMap.
    *
    * @param path path of current element, starting from root. If this a root element, then path equal "root".
    * @return the empty object who implementing interface from java.util.Map&lt;String, Object&gt;.
@@ -0,0 +1,85 @@
+package a2u.tn.utils.json;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The callback-interface for receiving json by events, without creating of maps and lists.<br>
+ * Events are called in the order of the data in json, like in SAX:
+ * <pre>
+ * {a: 1, b: [true, 'str']}
+ *
+ * startObject("root")
+ *   key("a")
+ *   value(1)
+ *   key("b")
+ *   startArray("root.b")
+ *     value(true)
+ *     value("str")
+ *   endArray()
+ * endObject()
+ * </pre>
+ * Methods of IGetCollection allow to get some parts of json as usual collections:
+ * if forObject() or forList() returns not null, then this object or array will be parsed into the returned collection,
+ * and passed to value() instead of events for its content.
+ *
+ * @see TnJson#walk(String, IJsonListener)
+ */
+public interface IJsonListener extends IGetCollection {
+
+  /**
+   * Begin of json-object.
+   * @param path path of the object, starting from root. If this a root element, then path equal "root".
+   */
+  void startObject(String path);
+
+  /**
+   * Key in the current json-object. Next event will be a value of this key.
+   * @param key name of key
+   */
+  void key(String key);
+
+  /**
+   * Simple value, or collection created by forObject() or forList().
+   * @param value the same value as in the Map returned by TnJson.parse()
+   */
+  void value(Object value);
+
+  /**
+   * End of the current json-object.
+   */
+  void endObject();
+
+  /**
+   * Begin of json-array.
+   * @param path path of the array, starting from root. If this a root element, then path equal "root".
+   */
+  void startArray(String path);
+
+  /**
+   * End of the current json-array.
+   */
+  void endArray();
+
+
+  /**
+   * By default all objects are passed by events.
+   * @param path path of current element
+   * @return null
+   */
+  @Override
+  default Map<String, Object> forObject(String path) {
+    return null;
+  }
+
+  /**
+   * By default all arrays are passed by events.
+   * @param path path of current element
+   * @return null
+   */
+  @Override
+  default Collection forList(String path) {
+    return null;
+  }
+
+}
@@ -0,0 +1,144 @@
+package a2u.tn.utils.json;
+
+import java.util.AbstractMap;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parsing of elements of the root array, or entries of the root object, one by one.<br>
+ * Every element is parsed entirely when the stream takes it, and the rest of json is not read yet,
+ * so only one element is kept in memory, if the stream does not collect them.
+ * Entries of the root object are returned as Map.Entry with the key and the value.
+ */
+final class JsonElements implements Spliterator<Object> {
+
+  private static final byte BEFORE_ROOT = 0;
+  private static final byte IN_ARRAY = 1;
+  private static final byte IN_OBJECT = 2;
+  private static final byte AFTER_ROOT = 3;
+
+  private final JsonParser parser;
+  private byte state = BEFORE_ROOT;
+
+
+  private JsonElements(JsonSource source, TnJsonParserBuilder settings) {
+    parser = new JsonParser(settings);
+    parser.init(source);
+  }
+
+
+  /**
+   * Stream of elements of the root array, or entries of the root object
+   * @param source incoming json
+   * @param settings parsing settings
+   * @return ordered sequential stream
+   */
+  static Stream<Object> stream(JsonSource source, TnJsonParserBuilder settings) {
+    return StreamSupport.stream(new JsonElements(source, settings), false);
+  }
+
+
+  @Override
+  public boolean tryAdvance(Consumer<? super Object> action) {
+    if (state == BEFORE_ROOT) {
+      state = findRoot();
+    }
+    if (state == IN_ARRAY) {
+      return nextElement(action);
+    }
+    if (state == IN_OBJECT) {
+      return nextEntry(action);
+    }
+    return false;
+  }
+
+  @Override
+  public Spliterator<Object> trySplit() {
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED;
+  }
+
+
+  /**
+   * Skip to the root object or array, all other text is skipped as by the usual parsing
+   */
+  private byte findRoot() {
+    while (true) {
+      char c = parser.getTokenBegin();
+      if (c == 0) {
+        return AFTER_ROOT;
+      }
+      parser.skipChar();
+      if (c == '[') {
+        return IN_ARRAY;
+      }
+      if (c == '{') {
+        parser.openPath();
+        return IN_OBJECT;
+      }
+    }
+  }
+
+  private boolean nextElement(Consumer<? super Object> action) {
+    char c = parser.getTokenBegin();
+    while (c == ',') {
+      parser.skipChar();
+      c = parser.getTokenBegin();
+    }
+    if (c == ']' || c == 0) {
+      parser.skipChar();
+      state = AFTER_ROOT;
+      return false;
+    }
+    action.accept(parser.extractValue());
+    return true;
+  }
+
+  private boolean nextEntry(Consumer<? super Object> action) {
+    char c = parser.getTokenBegin();
+    if (c == '}' || c == 0) {
+      parser.skipChar();
+      state = AFTER_ROOT;
+      return false;
+    }
+
+    parser.setPathKey(null);
+    String key = parser.extractIdenty();
+    parser.setPathKey(key);
+
+    c = parser.getTokenBegin();
+    if (c != ':') {
+      throw invalid(c, "':'");
+    }
+    parser.skipChar();
+    Object value = parser.extractValue();
+
+    c = parser.getTokenBegin();
+    if (c == ',') {
+      parser.skipChar();
+    }
+    else if (c != '}') {
+      throw invalid(c, "',' or '}'");
+    }
+    action.accept(new AbstractMap.SimpleImmutableEntry<>(key, value));
+    return true;
+  }
+
+  private ParseException invalid(char c, String expected) {
+    String pathForLog = parser.getPath();
+    long index = parser.getIndex();
+    return new ParseException("Invalid character '" + c + "' at position " + index + ", path '" + pathForLog + "', expected " + expected + ".", index, pathForLog);
+  }
+
+}
@@ -0,0 +1,341 @@
+package a2u.tn.utils.json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parsing of newline-delimited json (NDJSON, JSON Lines): every line is a separate json.<br>
+ * Records are returned by a Stream, which is ordered and sequential.
+ * After parallel() records are parsed by many threads of ForkJoinPool, and parsers are reused from the pool of the stream.
+ * If the order of records is not needed, unordered() allows to take records as soon as they are parsed.
+ * Empty lines are skipped.
+ */
+final class JsonLines {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private JsonLines() {
+    //hide this
+  }
+
+
+  /**
+   * Stream of records from the Reader. Lines are read sequentially, and are parsed by batches.
+   * @param reader incoming data, will not be closed
+   * @param settings parsing settings
+   * @return stream of records
+   */
+  static Stream<Map<String, Object>> parse(Reader reader, TnJsonParserBuilder settings) {
+    BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, BUFFER_SIZE);
+    Parsers parsers = new Parsers(settings);
+    return StreamSupport.stream(new ReaderLines(lines), false)
+                        .map(line -> {
+                          try {
+                            return parsers.parse(new CharSequenceSource(line.text));
+                          }
+                          catch (ParseException px) {
+                            throw new ParseException(px.getMessage() + " Record at line " + line.number + ".", px.getLongPosition(), px.getPath());
+                          }
+                        });
+  }
+
+  /**
+   * Stream of records from the UTF-8 encoded file. The file is mapped to memory, and is split
+   * to parts by line boundaries, so with parallel() every thread reads its own part of file.<br>
+   * The stream must be closed for closing the file.
+   * @param file incoming data
+   * @param settings parsing settings
+   * @return stream of records
+   */
+  static Stream<Map<String, Object>> parse(Path file, TnJsonParserBuilder settings) {
+    FileChannel channel;
+    long size;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+      size = channel.size();
+    }
+    catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    Parsers parsers = new Parsers(settings);
+    return StreamSupport.stream(new FileLines(channel, 0, size, parsers), false)
+                        .onClose(() -> {
+                          parsers.clear();
+                          try {
+                            channel.close();
+                          }
+                          catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                          }
+                        });
+  }
+
+
+  /**
+   * Parsers of the stream. A thread takes a free parser, or creates a new one, and returns it after parsing of a record.
+   * Unlike ThreadLocal, parsers are not kept by threads of ForkJoinPool after the stream is done.
+   */
+  private static final class Parsers {
+
+    private final TnJsonParserBuilder settings;
+    private final ConcurrentLinkedQueue<JsonParser> free = new ConcurrentLinkedQueue<>();
+
+    Parsers(TnJsonParserBuilder settings) {
+      this.settings = settings;
+    }
+
+    Map<String, Object> parse(JsonSource source) {
+      JsonParser parser = free.poll();
+      if (parser == null) {
+        parser = new JsonParser(settings);
+      }
+      try {
+        return parser.doParse(source);
+      }
+      finally {
+        free.offer(parser);
+      }
+    }
+
+    void clear() {
+      free.clear();
+    }
+  }
+
+  /**
+   * Not empty line of the Reader with its number
+   */
+  private static final class Line {
+    private final long number;
+    private final String text;
+
+    Line(long number, String text) {
+      this.number = number;
+      this.text = text;
+    }
+  }
+
+  /**
+   * Not empty lines of the Reader. Lines are read and numbered sequentially, after parallel() they are split by batches.
+   */
+  private static final class ReaderLines extends Spliterators.AbstractSpliterator<Line> {
+
+    private final BufferedReader reader;
+    private long number;
+
+    ReaderLines(BufferedReader reader) {
+      super(Long.MAX_VALUE, ORDERED | NONNULL);
+      this.reader = reader;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Line> action) {
+      try {
+        String text;
+        while ((text = reader.readLine()) != null) {
+          number++;
+          if (!text.trim().isEmpty()) {
+            action.accept(new Line(number, text));
+            return true;
+          }
+        }
+        return false;
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+  /**
+   * Records in the part of file. The part starts at begin of line, and ends after end of line or at end of file.
+   */
+  private static final class FileLines implements Spliterator<Map<String, Object>> {
+
+    private static final int WINDOW_SIZE = 1 << 26;
+    private static final long MIN_SPLIT = 1 << 20;
+
+    private final FileChannel channel;
+    private final Parsers parsers;
+    private long position;  // begin of the not mapped data
+    private final long end;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowPosition;
+    private int windowLimit;
+
+
+    FileLines(FileChannel channel, long start, long end, Parsers parsers) {
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+      this.parsers = parsers;
+    }
+
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Map<String, Object>> action) {
+      while (true) {
+        if (window == null || windowPosition >= windowLimit) {
+          if (!mapNext()) {
+            return false;
+          }
+        }
+
+        int start = windowPosition;
+        int lineEnd = start;
+        while (lineEnd < windowLimit && window.get(lineEnd) != '\n') {
+          lineEnd++;
+        }
+        windowPosition = lineEnd + 1;
+        if (isBlank(start, lineEnd)) {
+          continue;
+        }
+
+        ByteBuffer record = window.duplicate();
+        record.limit(lineEnd).position(start);
+        long recordStart = windowStart + start;
+        try {
+          action.accept(parsers.parse(new RecordSource(record)));
+        }
+        catch (ParseException px) {
+          throw new ParseException(px.getMessage() + " Record at position " + recordStart + ".", recordStart + px.getLongPosition(), px.getPath());
+        }
+        return true;
+      }
+    }
+
+    @Override
+    public Spliterator<Map<String, Object>> trySplit() {
+      if (window != null || end - position < MIN_SPLIT) {
+        return null;
+      }
+      long lineStart = nextLine(position + (end - position) / 2);
+      if (lineStart >= end) {
+        return null;
+      }
+      FileLines prefix = new FileLines(channel, position, lineStart, parsers);
+      position = lineStart;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - position + (window != null ? windowLimit - windowPosition : 0);
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+
+
+    /**
+     * Map the next window, which ends after a line
+     */
+    private boolean mapNext() {
+      window = null;
+      if (position >= end) {
+        return false;
+      }
+      long length = Math.min(WINDOW_SIZE, end - position);
+      try {
+        while (true) {
+          MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+          int limit = (int) length;
+          if (position + length < end) {
+            while (limit > 0 && buf.get(limit - 1) != '\n') {
+              limit--;
+            }
+            if (limit == 0) {
+              // line is longer than the window
+              if (length == Integer.MAX_VALUE) {
+                throw new ParseException("Line is too long at position " + position + ".", position, JsonParser.PATH_ROOT_KEY);
+              }
+              length = Math.min(Math.min(length * 2, end - position), Integer.MAX_VALUE);
+              continue;
+            }
+          }
+          window = buf;
+          windowStart = position;
+          windowPosition = 0;
+          windowLimit = limit;
+          position += limit;
+          return true;
+        }
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    /**
+     * @return position after the first '\n' starting from the position, or end of part
+     */
+    private long nextLine(long from) {
+      ByteBuffer buf = ByteBuffer.allocate(4096);
+      long pos = from;
+      try {
+        while (pos < end) {
+          buf.clear();
+          int count = channel.read(buf, pos);
+          if (count <= 0) {
+            return end;
+          }
+          for (int i = 0; i < count; i++) {
+            if (buf.get(i) == '\n') {
+              return Math.min(pos + i + 1, end);
+            }
+          }
+          pos += count;
+        }
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      return end;
+    }
+
+    private boolean isBlank(int start, int lineEnd) {
+      for (int i = start; i < lineEnd; i++) {
+        byte b = window.get(i);
+        if (b != ' ' && b != '\t' && b != '\r') {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Record in the mapped window of file
+   */
+  private static final class RecordSource extends Utf8Source {
+
+    RecordSource(ByteBuffer record) {
+      super(record);
+    }
+
+    @Override
+    CharSequence view(long start, long end) {
+      return null; // a view would keep the whole mapped window after closing of the stream
+    }
+
+  }
+
+}
@@ -0,0 +1,140 @@
+package a2u.tn.utils.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Number, which keeps the text of a number from json and decodes it only when its value is needed.<br>
+ * The value is decoded by the first call of intValue(), longValue(), floatValue() or doubleValue(),
+ * to the same type as the parser gives usually: Integer, Long, BigInteger or Double.
+ * toBigDecimal() gives the exact value of decimal fractions, without rounding to double.
+ * <br>
+ * toString() returns the original text, so this number is written back to json by TnJson.toJson() as it was,
+ * without any conversion.
+ * Two numbers are equal if they have the same text, so "1.0" and "1" are not equal, but compareTo() compares their values.
+ * @see TnJsonParserBuilder#lazyNumbers()
+ */
+public final class JsonNumber extends Number implements Comparable<JsonNumber> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String text;
+  private transient Number value;  // decoded value
+
+
+  /**
+   * Create number from its text
+   * @param text number by the grammar of standard json, such as "-12", "0.5" or "1e10"
+   * @throws NumberFormatException if text is not a number of standard json
+   */
+  public JsonNumber(String text) {
+    char[] chars = text.toCharArray();
+    if (!JsonParser.isStrictNumber(chars, chars.length)) {
+      throw new NumberFormatException("Invalid json number '" + text + "'.");
+    }
+    this.text = text;
+  }
+
+  /**
+   * Number from the parser, which checks the text itself
+   */
+  JsonNumber(char[] chars, int length) {
+    this.text = new String(chars, 0, length);
+  }
+
+
+  /**
+   * Decoded value of this number
+   * @return value as Integer, Long, BigInteger or Double, the same as the parser returns without lazy numbers
+   */
+  public Number getValue() {
+    Number result = value;
+    if (result == null) {
+      result = value = decode(text);
+    }
+    return result;
+  }
+
+  /**
+   * Exact value of this number
+   * @return value with all digits of the text
+   */
+  public BigDecimal toBigDecimal() {
+    return new BigDecimal(text);
+  }
+
+  @Override
+  public int intValue() {
+    return getValue().intValue();
+  }
+
+  @Override
+  public long longValue() {
+    return getValue().longValue();
+  }
+
+  @Override
+  public float floatValue() {
+    return getValue().floatValue();
+  }
+
+  @Override
+  public double doubleValue() {
+    return getValue().doubleValue();
+  }
+
+  /**
+   * Compare exact values of numbers
+   */
+  @Override
+  public int compareTo(JsonNumber other) {
+    return toBigDecimal().compareTo(other.toBigDecimal());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof JsonNumber && text.equals(((JsonNumber) o).text);
+  }
+
+  @Override
+  public int hashCode() {
+    return text.hashCode();
+  }
+
+  /**
+   * @return the original text of number
+   */
+  @Override
+  public String toString() {
+    return text;
+  }
+
+
+  /**
+   * Decode number of standard json by the same limits of length as in the parser
+   */
+  private static Number decode(String text) {
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (c == '.' || c == 'e' || c == 'E') {
+        return Double.parseDouble(text);
+      }
+    }
+
+    int maxintlen = 9;
+    int maxlonglen = 18;
+    if (text.charAt(0) == '-') {
+      maxintlen++;
+      maxlonglen++;
+    }
+    if (length <= maxintlen) {
+      return Integer.parseInt(text);
+    }
+    if (length <= maxlonglen) {
+      return Long.parseLong(text);
+    }
+    return new BigInteger(text);
+  }
+
+}
@@ -2,9 +2,13 @@ package a2u.tn.utils.json;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Parsing JSON string to Map object with JSON5
@@ -27,28 +31,19 @@ class JsonParser {
 
 
   private IGetCollection listener;
+  private IJsonListener events;
+  private KeyCache keyCache;
+  private boolean isLazyStrings;
+  private boolean isLazy;        // create LazyMap and LazyList for nested objects and arrays
+  private PathTree paths;        // paths which must be parsed, or null for all
+  private boolean isParallel;    // parse elements of the root array by many threads
+  private boolean isNumberLists; // return arrays of numbers as NumberList
+  private boolean isLazyNumbers; // return decimal numbers as JsonNumber
+  private KeyShapes shapes;      // shapes of objects for sharing of keys, or null
+  private int maxDepth = Integer.MAX_VALUE;  // max count of nested objects and arrays
+  private boolean isStrict;      // standard json only, without JSON5 extensions
 
 
-  /**
-   * Inner immutable class for represent path by root of json-object
-   */
-  private class Path {
-    private String path;
-
-    public Path(String str) {
-      this.path = str;
-    }
-
-    public String getName() {
-      return path;
-    }
-
-    public Path add(String node) {
-      return new Path(path + '.' + node);
-    }
-
-  }
-
   private static final String NULL = "null";
   private static final String BOOL_TRUE = "true";
   private static final String BOOL_FALSE = "false";
@@ -57,16 +52,74 @@ class JsonParser {
   private static final String NUM_INFINITY_NEGATIVE = "-infinity";
   private static final String NUM_NAN = "nan";
 
+  private static final Object NOT_DECODED = new Object();
+  private static final Object OPENED = new Object();     // value is an object or array, which is opened in the stack
+
+  private static final byte FRAME_MAP = 0;
+  private static final byte FRAME_LIST = 1;
+  private static final byte FRAME_NUMBERS = 2;            // NumberList, until the first not number value
+
+  /**
+   * Size of data for one thread in parallel parsing of array
+   */
+  private static final int PARALLEL_PART_SIZE = 1 << 18;
+
+  /**
+   * Max size of buffers, which are kept by trim()
+   */
+  private static final int KEPT_BUFFER_SIZE = 1 << 16;
+
   private static final char LF = 0x0A;
   private static final char CR = 0x0D;
   private static final char LS = 0x2028;
   private static final char PS = 0x2029;
 
+  private static final byte CHAR_SPACE = 1;
+  private static final byte CHAR_DIGIT = 2;
+  private static final byte CHAR_NUMBER = 4;              // digits and other characters of numbers
+  private static final byte CHAR_HEX = 8;
+
+  /**
+   * Classes of ASCII characters for the strict parsing
+   */
+  private static final byte[] CHAR_CLASSES = new byte[128];
+  static {
+    CHAR_CLASSES[' '] = CHAR_SPACE;
+    CHAR_CLASSES['\t'] = CHAR_SPACE;
+    CHAR_CLASSES[LF] = CHAR_SPACE;
+    CHAR_CLASSES[CR] = CHAR_SPACE;
+    for (char c = '0'; c <= '9'; c++) {
+      CHAR_CLASSES[c] = CHAR_DIGIT | CHAR_NUMBER | CHAR_HEX;
+    }
+    for (char c = 'a'; c <= 'f'; c++) {
+      CHAR_CLASSES[c] = CHAR_HEX;
+      CHAR_CLASSES[Character.toUpperCase(c)] = CHAR_HEX;
+    }
+    CHAR_CLASSES['-'] = CHAR_NUMBER;
+    CHAR_CLASSES['+'] = CHAR_NUMBER;
+    CHAR_CLASSES['.'] = CHAR_NUMBER;
+    CHAR_CLASSES['e'] |= CHAR_NUMBER;
+    CHAR_CLASSES['E'] |= CHAR_NUMBER;
+  }
+
 
   private Map<String, Object> resultMap; // result object
-  private String content;                // incoming json-string
-  private int maxLength;                 // cache of length the incoming json-string
-  private int index;                     // current accepted symbol
+  private JsonSource source;             // incoming json
+  private long index;                    // current accepted symbol
+
+  private final StringBuilder keyBuffer = new StringBuilder();    // buffer for extracting of keys
+  private final StringBuilder stringBuffer = new StringBuilder(); // buffer for extracting of strings
+  private char[] literalBuffer = new char[32];                 // buffer for extracting of literals
+
+  private boolean isBusy;                     // doParse() is running
+
+  private String[] pathKeys = new String[16]; // current path: keys in the opened objects, it is joined only when needed
+  private int pathDepth;                      // count of the opened objects
+
+  private Object[] stack = new Object[16];    // opened objects and arrays, which are parsed by parseFrames()
+  private byte[] stackKinds = new byte[16];
+  private int stackSize;
+  private int depth;                          // count of the opened objects and arrays
 
 
   JsonParser() {
@@ -75,6 +128,44 @@ class JsonParser {
   JsonParser(IGetCollection listener) {
     this.listener = listener;
   }
+  JsonParser(boolean isLazy) {
+    this.isLazy = isLazy;
+  }
+  JsonParser(TnJsonParserBuilder settings) {
+    this(settings, settings.keyCache);
+  }
+  JsonParser(TnJsonParserBuilder settings, KeyCache keyCache) {
+    this.listener = settings.listener;
+    this.keyCache = keyCache;
+    this.isLazyStrings = settings.isLazyStrings;
+    this.paths = settings.paths;
+    this.isParallel = settings.isParallel;
+    this.isNumberLists = settings.isNumberLists && !settings.isLazyNumbers;
+    this.isLazyNumbers = settings.isLazyNumbers;
+    this.shapes = settings.isSharedKeys ? new KeyShapes() : null;
+    this.maxDepth = settings.maxDepth;
+    this.isStrict = settings.isStrict;
+    if (paths != null) {
+      settings.checkNotStrict("paths()");
+    }
+    if (isParallel) {
+      settings.checkNotStrict("parallel()");
+    }
+  }
+  /**
+   * Parser with the same settings
+   */
+  private JsonParser(JsonParser settings) {
+    this.listener = settings.listener;
+    this.keyCache = settings.keyCache;
+    this.isLazyStrings = settings.isLazyStrings;
+    this.isLazy = settings.isLazy;
+    this.isNumberLists = settings.isNumberLists;
+    this.isLazyNumbers = settings.isLazyNumbers;
+    this.shapes = settings.shapes != null ? new KeyShapes() : null;
+    this.maxDepth = settings.maxDepth;
+    this.isStrict = settings.isStrict;
+  }
 
 
 
@@ -84,98 +175,1225 @@ class JsonParser {
    * @return java-map object - result of parsing
    */
   Map<String, Object> doParse(String data) {
-    content = data.trim();
-    maxLength = content.length();
+    return doParse(new CharSequenceSource(data));
+  }
+
+  /**
+   * Prepare and start parsing
+   * @param data incoming json
+   * @return java-map object - result of parsing
+   */
+  Map<String, Object> doParse(JsonSource data) {
+    isBusy = true;
+    try {
+      init(data);
+
+      resultMap = getCollectionForObject();
+
+      if (isStrict) {
+        parseStrictRoot();
+      }
+      else {
+        parseEmpty();
+      }
+
+      return resultMap;
+    }
+    finally {
+      release();
+      isBusy = false;
+    }
+  }
+
+  /**
+   * Check that parser is used now, for example by a listener, which parses another json
+   */
+  boolean isBusy() {
+    return isBusy;
+  }
+
+  /**
+   * Release references to the data and the result, so this parser can be kept for next parsing
+   */
+  private void release() {
+    resultMap = null;
+    source = null;
+    while (pathDepth > 0) {
+      closePath();
+    }
+    Arrays.fill(stack, 0, stackSize, null);
+    stackSize = 0;
+    depth = 0;
+  }
+
+  /**
+   * Release references to the data and the result, and return buffers to the initial size,
+   * if they were grown by a big json
+   */
+  void reset() {
+    release();
+    keyBuffer.setLength(0);
+    keyBuffer.trimToSize();
+    stringBuffer.setLength(0);
+    stringBuffer.trimToSize();
+    literalBuffer = new char[32];
+    pathKeys = new String[16];
+    stack = new Object[16];
+    stackKinds = new byte[16];
+    if (shapes != null) {
+      shapes = new KeyShapes();
+    }
+  }
+
+  /**
+   * Return buffers to the initial size, if some of them is grown over KEPT_BUFFER_SIZE by a big json.
+   * Shapes of objects are kept.
+   * @return true if buffers are returned to the initial size
+   */
+  boolean trim() {
+    if (keyBuffer.capacity() <= KEPT_BUFFER_SIZE && stringBuffer.capacity() <= KEPT_BUFFER_SIZE
+        && literalBuffer.length <= KEPT_BUFFER_SIZE && pathKeys.length <= KEPT_BUFFER_SIZE && stack.length <= KEPT_BUFFER_SIZE) {
+      return false;
+    }
+    KeyShapes kept = shapes;
+    reset();
+    shapes = kept;
+    return true;
+  }
+
+  /**
+   * Start parsing with passing data to the listener by events
+   * @param data incoming json
+   * @param events listener
+   */
+  void doWalk(JsonSource data, IJsonListener events) {
+    init(data);
+    this.listener = events;
+    this.events = events;
+
+    while (source.has(index)) {
+      char c = getTokenBegin();
+      if (c == '{' || c == '[') {
+        int base = stackSize;
+        if (walkValue()) {
+          walkFrames(base);
+        }
+        return;
+      }
+      index++;
+    }
+  }
+
+  /**
+   * Parse one nested object or array for LazyMap or LazyList
+   * @param data incoming json
+   * @param position position of '{' or '['
+   * @param path keys of the enclosing objects
+   * @return CompactMap or ArrayList with content
+   */
+  Object parseLazy(JsonSource data, long position, String[] path) {
+    init(data);
+    for (String key : path) {
+      openPath();
+      setPathKey(key);
+    }
+    index = position + 1;
+    if (source.charAt(position) == '{') {
+      return parseMap(getCollectionForObject(), null);
+    }
+    return parseList(getCollectionForList(), null);
+  }
+
+  /**
+   * Set incoming json and move to its begin
+   * @param data incoming json
+   */
+  void init(JsonSource data) {
+    source = data;
     index = 0;
+    while (pathDepth > 0) {
+      closePath();
+    }
+    Arrays.fill(stack, 0, stackSize, null);
+    stackSize = 0;
+    depth = 0;
+  }
+
+  /**
+   * Current position
+   * @return position of the current accepted symbol
+   */
+  long getIndex() {
+    return index;
+  }
+
+  /**
+   * Accept current symbol and move to the next one
+   */
+  void skipChar() {
+    index++;
+  }
+
+  /**
+   * Open new object in the current path
+   */
+  void openPath() {
+    if (pathDepth == pathKeys.length) {
+      pathKeys = Arrays.copyOf(pathKeys, pathDepth * 2);
+    }
+    pathKeys[pathDepth++] = null;
+  }
 
-    Path emptypath = new Path(PATH_ROOT_KEY);
-    resultMap = getCollectionForObject(emptypath);
+  /**
+   * Set key of the current value in the last opened object
+   * @param key key or null if the key is not yet known
+   */
+  void setPathKey(String key) {
+    pathKeys[pathDepth - 1] = key;
+  }
 
-    parseEmpty(emptypath);
+  /**
+   * Close the last opened object
+   */
+  void closePath() {
+    pathKeys[--pathDepth] = null;
+  }
 
-    return resultMap;
+  /**
+   * Current path, starting from the root, in the format of IGetCollection
+   * @return path such as "root.obj.key"
+   */
+  String getPath() {
+    if (pathDepth == 0) {
+      return PATH_ROOT_KEY;
+    }
+    StringBuilder b = new StringBuilder(PATH_ROOT_KEY);
+    for (int i = 0; i < pathDepth; i++) {
+      if (pathKeys[i] != null) {
+        b.append('.').append(pathKeys[i]);
+      }
+    }
+    return b.toString();
   }
 
-  private void parseEmpty(Path emptypath) {
-    while (index < maxLength) {
+  private void parseEmpty() {
+    while (source.has(index)) {
       char c = getTokenBegin();
       if (c == '{') {
         index++;
-        resultMap = parseMap(emptypath);
+        resultMap = parseMap(getCollectionForObject(), selected(paths));
         return;
       }
       else if (c == '[') {
         index++;
-        Collection list = parseList(emptypath);
-        resultMap.put(DEFAULT_LIST_KEY, list);
+        PathTree tree = selected(paths) == null ? null : paths.child(DEFAULT_LIST_KEY);
+        if (selected(paths) != null && tree == null) {
+          skipNested(1);
+        }
+        else if (selected(tree) == null) {
+          JsonSource shared = isParallel && paths == null && ForkJoinPool.getCommonPoolParallelism() > 1 ? source.share() : null;
+          int base = stackSize;
+          pushList();
+          resultMap.put(DEFAULT_LIST_KEY, shared != null ? parseListParallel(shared) : parseFrames(base));
+        }
+        else {
+          Collection list = parseList(getCollectionForList(), selected(tree));
+          resultMap.put(DEFAULT_LIST_KEY, list);
+        }
       }
 
       index++;
     }
   }
 
-  private Map<String, Object> parseMap(Path path) {
-    Map<String, Object> map = getCollectionForObject(path);
+  /**
+   * Parse object
+   * @param map collection for the result
+   * @param tree paths which must be parsed in this object, or null for all
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> parseMap(Map<String, Object> map, PathTree tree) {
+    if (tree == null) {
+      int base = stackSize;
+      push(map, FRAME_MAP);
+      return (Map<String, Object>) parseFrames(base);
+    }
+    enterDepth();
+    openPath();
 
-    while (index < maxLength) {
+    while (source.has(index)) {
       char c = getTokenBegin(); //skip to begin
 
       if (c == '}') {
         index++;
-        return map;
+        break;
+      }
+      if (c == 0) {
+        break;
+      }
+
+      setPathKey(null);
+      scanIdenty();
+      PathTree child = tree.child(keyBuffer);
+      String key = child != null ? toKey(keyBuffer) : null;
+      setPathKey(key);
+
+      c = getTokenBegin();
+      if (c != ':') {
+        String pathForLog = getPath();
+        throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", path '" + pathForLog + "', expected ':'.", index, pathForLog);
+      }
+      index++;
+      if (child == null) {
+        skipValue();
+      }
+      else {
+        Object val = extractSelected(selected(child));
+        if (val != NOT_DECODED) {
+          map.put(key, val);
+        }
+      }
+
+      c = getTokenBegin();
+      if (c == '}') {
+        index++;
+        break;
+      }
+      if (c == ',') {
+        index++;
+        continue;
+      }
+
+      String pathForLog = getPath();
+      throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", last path '"+ pathForLog +"', expected ',' or '}'.", index, pathForLog);
+    }
+
+    closeMap(map);
+    depth--;
+    return map;
+  }
+
+  /**
+   * Parse array
+   * @param list collection for the result
+   * @param tree paths which must be parsed in elements of this array, or null for all
+   */
+  @SuppressWarnings("unchecked")
+  private Collection parseList(Collection list, PathTree tree) {
+    if (tree == null) {
+      int base = stackSize;
+      push(list, FRAME_LIST);
+      return (Collection) parseFrames(base);
+    }
+    enterDepth();
+    int count = 0;  // count of elements
+    int nulls = 0;  // skipped elements, which are replaced by null before the next parsed element
+
+    while (source.has(index)) {
+      char c = getTokenBegin();
+
+      if (c == ']') {
+        index++;
+        break;
+      }
+      if (c == 0) {
+        break;
+      }
+
+      if (c == ',') {
+        index++;
+        continue;
+      }
+
+      if (tree.isAfterLast(count)) {
+        skipNested(1);
+        break;
+      }
+      PathTree element = tree.element(count++);
+      Object val = NOT_DECODED;
+      if (element == null) {
+        skipValue();
+      }
+      else {
+        val = extractSelected(element == tree ? tree : selected(element));
+      }
+      if (val == NOT_DECODED) {
+        nulls++;
+        continue;
+      }
+      for (; nulls > 0; nulls--) {
+        list.add(null);
+      }
+      list.add(val);
+    }
+
+    depth--;
+    return list;
+  }
+
+  /**
+   * Parse the opened objects and arrays in one loop, without recursion.<br>
+   * Every opened object or array is a frame in the stack. When it is closed, it is added to the parent frame,
+   * so the depth of json is limited only by the memory and by maxDepth.
+   * @param base count of frames, which are not parsed by this call
+   * @return the first opened object or array
+   */
+  @SuppressWarnings("unchecked")
+  private Object parseFrames(int base) {
+    while (true) {
+      int top = stackSize - 1;
+      Object value;
+      char c = getTokenBegin(); //skip to begin
+
+      if (!source.has(index)) {
+        value = pop(false);
+      }
+      else if (stackKinds[top] == FRAME_MAP) {
+        if (c == '}') {
+          index++;
+          value = pop(true);
+        }
+        else {
+          setPathKey(null);
+          String key = extractIdenty();
+          setPathKey(key);
+
+          c = getTokenBegin();
+          if (c != ':') {
+            String pathForLog = getPath();
+            throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", path '" + pathForLog + "', expected ':'.", index, pathForLog);
+          }
+          index++;
+          value = startValue();
+        }
+      }
+      else {
+        if (c == ']') {
+          index++;
+          value = pop(true);
+        }
+        else if (c == ',') {
+          index++;
+          continue;
+        }
+        else if (stackKinds[top] == FRAME_NUMBERS && addNumber(c)) {
+          continue;
+        }
+        else {
+          value = startValue();
+        }
+      }
+
+      if (value == OPENED) {
+        continue;
+      }
+
+      // add value to the parent, and close the parent objects, which end after this value
+      while (stackSize > base) {
+        int parent = stackSize - 1;
+        if (stackKinds[parent] != FRAME_MAP) {
+          ((Collection) stack[parent]).add(value);
+          break;
+        }
+
+        ((Map<String, Object>) stack[parent]).put(pathKeys[pathDepth - 1], value);
+        c = getTokenBegin();
+        if (c == '}') {
+          index++;
+          value = pop(true);
+          continue;
+        }
+        if (c == ',') {
+          index++;
+          break;
+        }
+        String pathForLog = getPath();
+        throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", last path '"+ pathForLog +"', expected ',' or '}'.", index, pathForLog);
+      }
+      if (stackSize == base) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Start the next value
+   * @return simple value, or OPENED if the value is an object or array, which is pushed to the stack
+   */
+  private Object startValue() {
+    char c = getTokenBegin();
+
+    if (c == '{' || c == '[') {
+      if (isLazy) {
+        long position = index;
+        String[] path = Arrays.copyOf(pathKeys, pathDepth);
+        index++;
+        skipNested(1);
+        return c == '{' ? new LazyMap(source, position, path) : new LazyList(source, position, path);
+      }
+      index++;
+      if (c == '{') {
+        push(getCollectionForObject(), FRAME_MAP);
+      }
+      else {
+        pushList();
+      }
+      return OPENED;
+    }
+    if (c == '"' || c == '\'') {
+      if (isLazyStrings) {
+        return extractStringView();
+      }
+      return extractString();
+    }
+    return extractLiteral();
+  }
+
+  /**
+   * Add the next value to the array of numbers, if it is a number.<br>
+   * Numbers are added to the NumberList until the first other value. Then numbers are moved to the usual list,
+   * and the rest of array is parsed as usual.
+   * @param c the first character of value
+   * @return true if the value is added, false if it must be parsed as usual
+   */
+  private boolean addNumber(char c) {
+    int top = stackSize - 1;
+    if (c == '{' || c == '[' || c == '"' || c == '\'') {
+      toList(top);
+      return false;
+    }
+    Object val = extractLiteral();
+    if (NumberList.isNumber(val)) {
+      ((NumberList) stack[top]).add((Number) val);
+    }
+    else {
+      toList(top).add(val);
+    }
+    return true;
+  }
+
+  /**
+   * Change NumberList in the frame to the usual list
+   */
+  private Collection<Object> toList(int frame) {
+    Collection<Object> list = new ArrayList<>((NumberList) stack[frame]);
+    stack[frame] = list;
+    stackKinds[frame] = FRAME_LIST;
+    return list;
+  }
+
+  /**
+   * Open the frame of array.
+   * Arrays of numbers are returned as NumberList, if it is enabled and listener does not specify the collection.
+   */
+  private void pushList() {
+    if (isNumberLists) {
+      Collection list = listener != null ? listener.forList(getPath()) : null;
+      if (list == null) {
+        push(new NumberList(), FRAME_NUMBERS);
+      }
+      else {
+        push(list, FRAME_LIST);
+      }
+      return;
+    }
+    push(getCollectionForList(), FRAME_LIST);
+  }
+
+  private void push(Object container, byte kind) {
+    enterDepth();
+    if (stackSize == stack.length) {
+      stack = Arrays.copyOf(stack, stackSize * 2);
+      stackKinds = Arrays.copyOf(stackKinds, stackSize * 2);
+    }
+    stack[stackSize] = container;
+    stackKinds[stackSize++] = kind;
+    if (kind == FRAME_MAP) {
+      openPath();
+    }
+  }
+
+  /**
+   * Close the last frame
+   * @param isEnd the closing bracket is found, else json is ended
+   * @return closed object or array
+   */
+  @SuppressWarnings("unchecked")
+  private Object pop(boolean isEnd) {
+    int top = --stackSize;
+    Object container = stack[top];
+    stack[top] = null;
+    depth--;
+    if (stackKinds[top] == FRAME_MAP) {
+      closeMap((Map<String, Object>) container);
+    }
+    else if (stackKinds[top] == FRAME_NUMBERS) {
+      if (isEnd) {
+        ((NumberList) container).trimToSize();
+      }
+      else {
+        container = new ArrayList((NumberList) container);
+      }
+    }
+    return container;
+  }
+
+  /**
+   * Complete the parsed object, and close its path
+   */
+  private void closeMap(Map<String, Object> map) {
+    if (map instanceof CompactMap) {
+      CompactMap compact = (CompactMap) map;
+      compact.trimToSize();
+      if (shapes != null) {
+        shapes.share(compact);
+      }
+    }
+    closePath();
+  }
+
+  /**
+   * Count the opened object or array
+   * @throws ParseException if json is deeper than maxDepth
+   */
+  private void enterDepth() {
+    if (depth == maxDepth) {
+      String pathForLog = getPath();
+      throw new ParseException("Nesting is deeper than " + maxDepth + " at position " + index + ", path '" + pathForLog + "'.", index, pathForLog);
+    }
+    depth++;
+  }
+
+  /**
+   * Parse standard json by RFC 8259, without JSON5 extensions.<br>
+   * Root must be an object or an array, and only whitespaces can follow it.
+   */
+  @SuppressWarnings("unchecked")
+  private void parseStrictRoot() {
+    char c = getStrictTokenBegin();
+    int base = stackSize;
+    if (c == '{') {
+      index++;
+      push(getCollectionForObject(), FRAME_MAP);
+      resultMap = (Map<String, Object>) parseStrict(base);
+    }
+    else if (c == '[') {
+      index++;
+      pushList();
+      resultMap.put(DEFAULT_LIST_KEY, parseStrict(base));
+    }
+    else {
+      throw unexpected(c, "'{' or '['");
+    }
+
+    c = getStrictTokenBegin();
+    if (source.has(index)) {
+      throw unexpected(c, "end of data");
+    }
+  }
+
+  /**
+   * The same loop as parseFrames(), but for standard json only: keys must be in double quotes,
+   * elements must be separated by commas, and a comma can not be before the closing bracket.
+   * @param base count of frames, which are not parsed by this call
+   * @return the first opened object or array
+   */
+  @SuppressWarnings("unchecked")
+  private Object parseStrict(int base) {
+    boolean isOpened = true;  // the top frame has no elements yet, so it can be closed
+    while (true) {
+      int top = stackSize - 1;
+      char c = getStrictTokenBegin();
+      Object value;
+
+      if (stackKinds[top] == FRAME_MAP) {
+        if (c == '}' && isOpened) {
+          index++;
+          value = pop(true);
+        }
+        else {
+          if (c != '"') {
+            throw unexpected(c, "key in double quotes");
+          }
+          setPathKey(null);
+          String key = extractStrictKey();
+          setPathKey(key);
+
+          c = getStrictTokenBegin();
+          if (c != ':') {
+            throw unexpected(c, "':'");
+          }
+          index++;
+          value = startStrictValue();
+        }
+      }
+      else if (c == ']' && isOpened) {
+        index++;
+        value = pop(true);
+      }
+      else {
+        value = startStrictValue();
+      }
+
+      isOpened = value == OPENED;
+      if (isOpened) {
+        continue;
+      }
+
+      // add value to the parent, and close the parents, which end after this value
+      while (stackSize > base) {
+        int parent = stackSize - 1;
+        char end = ']';
+        if (stackKinds[parent] == FRAME_MAP) {
+          ((Map<String, Object>) stack[parent]).put(pathKeys[pathDepth - 1], value);
+          end = '}';
+        }
+        else if (stackKinds[parent] != FRAME_NUMBERS) {
+          ((Collection) stack[parent]).add(value);
+        }
+        else if (NumberList.isNumber(value)) {
+          ((NumberList) stack[parent]).add((Number) value);
+        }
+        else {
+          toList(parent).add(value);
+        }
+
+        c = getStrictTokenBegin();
+        if (c == ',') {
+          index++;
+          break;
+        }
+        if (c != end) {
+          throw unexpected(c, "',' or '" + end + "'");
+        }
+        index++;
+        value = pop(true);
+      }
+      if (stackSize == base) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Start the next value of standard json
+   * @return simple value, or OPENED if the value is an object or array, which is pushed to the stack
+   */
+  private Object startStrictValue() {
+    char c = getStrictTokenBegin();
+    switch (c) {
+      case '{':
+        index++;
+        push(getCollectionForObject(), FRAME_MAP);
+        return OPENED;
+      case '[':
+        index++;
+        pushList();
+        return OPENED;
+      case '"':
+        if (isLazyStrings) {
+          return extractStrictStringView();
+        }
+        scanStrictString(stringBuffer);
+        return stringBuffer.toString();
+      case 't':
+        return extractWord(BOOL_TRUE, Boolean.TRUE);
+      case 'f':
+        return extractWord(BOOL_FALSE, Boolean.FALSE);
+      case 'n':
+        return extractWord(NULL, null);
+      default:
+        return extractStrictNumber(c);
+    }
+  }
+
+  /**
+   * Skip whitespaces of standard json: space, tab, CR and LF.
+   * index will point to the first other symbol.
+   * @return this symbol, or 0 at the end of data
+   */
+  private char getStrictTokenBegin() {
+    while (source.has(index)) {
+      index = source.skipSpaces(index);
+      char c = source.charAt(index);
+      if (c >= CHAR_CLASSES.length || (CHAR_CLASSES[c] & CHAR_SPACE) == 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Key in double quotes, from the cache if it is set. Key is not trimmed.
+   */
+  private String extractStrictKey() {
+    StringBuilder b = keyBuffer;
+    scanStrictString(b);
+    if (keyCache == null) {
+      return b.toString();
+    }
+    return keyCache.get(b, 0, b.length());
+  }
+
+  /**
+   * String value as a view over the incoming data, if it has no escaped characters and source supports views.
+   * @return the same text as scanStrictString() gives
+   */
+  private CharSequence extractStrictStringView() {
+    long start = index + 1;
+    long end = source.scanString(start, '"');
+    if (source.charAt(end) == '"') {
+      CharSequence view = source.view(start, end);
+      if (view != null) {
+        index = end + 1;
+        return view;
+      }
+    }
+    scanStrictString(stringBuffer);
+    return stringBuffer.toString();
+  }
+
+  /**
+   * Extract string in double quotes to the buffer. String is not trimmed.
+   * Only escapes of standard json are accepted: \" \\ \/ \b \f \n \r \t and \\uXXXX.
+   * Control characters are not checked, they are copied to the string as they are.
+   */
+  private void scanStrictString(StringBuilder b) {
+    b.setLength(0);
+    index++;
+    while (source.has(index)) {
+      long end = source.scanString(index, '"');
+      if (end > index) {
+        source.append(b, index, end);
+        index = end;
+        continue;
+      }
+
+      char c = source.charAt(index);
+      if (c == '"') {
+        index++;
+        return;
+      }
+      if (c == '\\') {
+        b.append(getStrictEscapedChar());
+        index++;
+      }
+    }
+    throw unexpected((char) 0, "'\"'");
+  }
+
+  /**
+   * Convert escaped sequence of standard json to char.
+   * As result index will refer to the last accepted character
+   */
+  private char getStrictEscapedChar() {
+    index++;
+    char next = source.charAt(index);
+    switch (next) {
+      case '"':
+      case '\\':
+      case '/':  return next;
+      case 'b':  return '\b';
+      case 'f':  return '\f';
+      case 'n':  return '\n';
+      case 'r':  return '\r';
+      case 't':  return '\t';
+      case 'u':
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+          char c = source.charAt(++index);
+          if (c >= CHAR_CLASSES.length || (CHAR_CLASSES[c] & CHAR_HEX) == 0) {
+            throw unexpected(c, "hexadecimal digit");
+          }
+          value = (value << 4) | Character.digit(c, 16);
+        }
+        return (char) value;
+      default:
+        throw unexpected(next, "escaped character of json");
+    }
+  }
+
+  /**
+   * Extract true, false or null, only in lower case
+   */
+  private Object extractWord(String word, Object value) {
+    int length = word.length();
+    for (int i = 0; i < length; i++) {
+      char c = source.charAt(index);
+      if (c != word.charAt(i)) {
+        throw unexpected(c, "'" + word + "'");
+      }
+      index++;
+    }
+    return value;
+  }
+
+  /**
+   * Extract number by grammar of standard json: -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?<br>
+   * Number gets the same type as from extractLiteral(), or it is JsonNumber for lazy numbers.
+   * @param first the first character of number
+   */
+  private Object extractStrictNumber(char first) {
+    long start = index;
+    char[] b = literalBuffer;
+    int length = 0;
+    while (true) {
+      char c = source.charAt(index);
+      if (c >= CHAR_CLASSES.length || (CHAR_CLASSES[c] & CHAR_NUMBER) == 0) {
+        break;
+      }
+      if (length == b.length) {
+        b = literalBuffer = Arrays.copyOf(b, length * 2);
+      }
+      b[length++] = c;
+      index++;
+    }
+    if (length == 0) {
+      throw unexpected(first, "value");
+    }
+
+    if (!isStrictNumber(b, length)) {
+      String pathForLog = getPath();
+      throw new ParseException("Invalid number '" + new String(b, 0, length) + "' at position " + start + ", path '" + pathForLog + "'.", start, pathForLog);
+    }
+
+    if (isLazyNumbers) {
+      return new JsonNumber(b, length);
+    }
+    Object value = decodeLiteral(b, length);
+    if (value != NOT_DECODED) {
+      return value;
+    }
+    return detectNumber(new String(b, 0, length).toLowerCase());
+  }
+
+  /**
+   * Check the number by grammar of standard json
+   */
+  static boolean isStrictNumber(char[] b, int length) {
+    if (length == 0) {
+      return false;
+    }
+    int i = b[0] == '-' ? 1 : 0;
+    if (i < length && b[i] == '0') {
+      i++;
+    }
+    else {
+      int digits = skipDigits(b, i, length);
+      if (digits == i) {
+        return false;
+      }
+      i = digits;
+    }
+    if (i < length && b[i] == '.') {
+      int digits = skipDigits(b, i + 1, length);
+      if (digits == i + 1) {
+        return false;
+      }
+      i = digits;
+    }
+    if (i < length && (b[i] == 'e' || b[i] == 'E')) {
+      i++;
+      if (i < length && (b[i] == '+' || b[i] == '-')) {
+        i++;
+      }
+      int digits = skipDigits(b, i, length);
+      if (digits == i) {
+        return false;
+      }
+      i = digits;
+    }
+    return i == length;
+  }
+
+  /**
+   * @return position after digits
+   */
+  private static int skipDigits(char[] b, int start, int length) {
+    int i = start;
+    while (i < length && (CHAR_CLASSES[b[i]] & CHAR_DIGIT) != 0) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Error for an invalid character or the end of data
+   * @param c found character
+   * @param expected description of the expected characters
+   */
+  private ParseException unexpected(char c, String expected) {
+    String pathForLog = getPath();
+    String what = source.has(index) ? "Invalid character '" + charToLog(c) + "'" : "Unexpected end of data";
+    return new ParseException(what + " at position " + index + ", path '" + pathForLog + "', expected " + expected + ".", index, pathForLog);
+  }
+
+  /**
+   * Parse array by many threads.<br>
+   * At first elements are skipped without creating of objects, and positions of parts are saved.
+   * Then parts are parsed by ForkJoinPool, every part by its own parser, and are added to the opened array in the order.
+   * Every thread reads data by its own shared source.
+   * @param shared source for the current thread
+   * @return closed array
+   */
+  @SuppressWarnings("unchecked")
+  private Object parseListParallel(JsonSource shared) {
+    long[] parts = new long[16];  // positions of the first element in parts
+    int count = 0;
+    long partStart = -1;
+
+    while (source.has(index)) {
+      char c = getTokenBegin();
+      if (c == ']' || c == 0) {
+        break;
+      }
+      if (c == ',') {
+        index++;
+        continue;
+      }
+      if (partStart < 0 || index - partStart >= PARALLEL_PART_SIZE) {
+        if (count == parts.length) {
+          parts = Arrays.copyOf(parts, count * 2);
+        }
+        parts[count++] = index;
+        partStart = index;
+      }
+      skipValue();
+    }
+    long end = index;
+
+    List<Object>[] results = new List[count];
+    long[] starts = parts;
+    int partCount = count;
+    Map<Thread, JsonSource> sources = new ConcurrentHashMap<>();
+    sources.put(Thread.currentThread(), shared);
+    ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+      @Override
+      protected void compute() {
+        parseParts(0, partCount);
+      }
+
+      private void parseParts(int from, int to) {
+        if (to - from > 1) {
+          int middle = (from + to) >>> 1;
+          invokeAll(new RecursiveAction() {
+            @Override
+            protected void compute() {
+              parseParts(from, middle);
+            }
+          }, new RecursiveAction() {
+            @Override
+            protected void compute() {
+              parseParts(middle, to);
+            }
+          });
+          return;
+        }
+        if (to > from) {
+          long partEnd = from + 1 < partCount ? starts[from + 1] : end;
+          JsonSource data = sources.computeIfAbsent(Thread.currentThread(), thread -> source.share());
+          results[from] = new JsonParser(JsonParser.this).parsePart(data, starts[from], partEnd);
+        }
       }
+    });
 
-      String key = extractIdenty(path);
-
-      String pathForLog = path.getName() + "." + key;
-
-      c = getTokenBegin();
-      if (c != ':') {
-        throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", path '" + pathForLog + "', expected ':'.", index, pathForLog);
+    int top = stackSize - 1;
+    for (List<Object> part : results) {
+      for (Object val : part) {
+        if (stackKinds[top] != FRAME_NUMBERS) {
+          ((Collection) stack[top]).add(val);
+        }
+        else if (NumberList.isNumber(val)) {
+          ((NumberList) stack[top]).add((Number) val);
+        }
+        else {
+          toList(top).add(val);
+        }
       }
+    }
+    index = end;
+    boolean isEnd = source.charAt(index) == ']';
+    if (isEnd) {
       index++;
-      Object val = extractValue(path.add(key));
-      map.put(key, val);
+    }
+    return pop(isEnd);
+  }
 
-      c = getTokenBegin();
-      if (c == '}') {
-        index++;
-        return map;
+  /**
+   * Parse elements of array between positions, for parseListParallel()
+   */
+  private List<Object> parsePart(JsonSource data, long start, long end) {
+    init(data);
+    index = start;
+    List<Object> part = new ArrayList<>();
+    while (index < end && source.has(index)) {
+      char c = getTokenBegin();
+      if (index >= end) {
+        break;
       }
       if (c == ',') {
         index++;
         continue;
       }
+      part.add(extractValue());
+    }
+    return part;
+  }
 
-      throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", last path '"+ pathForLog +"', expected ',' or '}'.", index, pathForLog);
+  /**
+   * Parse value, if it is an object or array, and contains the selected paths
+   * @param tree paths which must be parsed in this value, or null for all
+   * @return value, or NOT_DECODED if value has no selected paths
+   */
+  private Object extractSelected(PathTree tree) {
+    if (tree == null) {
+      return extractValue();
     }
+    char c = getTokenBegin();
+    if (c == '{') {
+      index++;
+      return parseMap(getCollectionForObject(), tree);
+    }
+    if (c == '[') {
+      index++;
+      return parseList(getCollectionForList(), tree);
+    }
+    skipValue();
+    return NOT_DECODED;
+  }
 
-    return map;
+  /**
+   * @return null if the whole value is selected, or the tree
+   */
+  private static PathTree selected(PathTree tree) {
+    return tree != null && tree.isSelected() ? null : tree;
   }
 
-  @SuppressWarnings("unchecked")
-  private Collection parseList(Path path) {
-    Collection list = getCollectionForList(path);
 
-    while (index < maxLength) {
-      char c = getTokenBegin();
+  /**
+   * Pass the opened objects and arrays to the listener in one loop, without recursion, the same as parseFrames().<br>
+   * Frames in the stack have no containers, they only keep the kind of the opened value.
+   * @param base count of frames, which are not walked by this call
+   */
+  private void walkFrames(int base) {
+    while (true) {
+      int top = stackSize - 1;
+      boolean isOpened = false;
+      char c = getTokenBegin(); //skip to begin
 
-      if (c == ']') {
-        index++;
-        return list;
+      if (!source.has(index)) {
+        walkPop();
+      }
+      else if (stackKinds[top] == FRAME_MAP) {
+        if (c == '}') {
+          index++;
+          walkPop();
+        }
+        else {
+          setPathKey(null);
+          String key = extractIdenty();
+          setPathKey(key);
+
+          c = getTokenBegin();
+          if (c != ':') {
+            String pathForLog = getPath();
+            throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", path '" + pathForLog + "', expected ':'.", index, pathForLog);
+          }
+          index++;
+          events.key(key);
+          isOpened = walkValue();
+        }
+      }
+      else {
+        if (c == ']') {
+          index++;
+          walkPop();
+        }
+        else if (c == ',') {
+          index++;
+          continue;
+        }
+        else {
+          isOpened = walkValue();
+        }
       }
 
-      if (c == ',') {
-        index++;
+      if (isOpened) {
         continue;
       }
 
-      Object val = extractValue(path);
-      list.add(val);
+      // close the parent objects, which end after this value
+      while (stackSize > base && stackKinds[stackSize - 1] == FRAME_MAP) {
+        c = getTokenBegin();
+        if (c == '}') {
+          index++;
+          walkPop();
+          continue;
+        }
+        if (c == ',') {
+          index++;
+          break;
+        }
+        String pathForLog = getPath();
+        throw new ParseException("Invalid character '" + charToLog(c) + "' at position " + index + ", last path '"+ pathForLog +"', expected ',' or '}'.", index, pathForLog);
+      }
+      if (stackSize == base) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Pass the next value to the listener
+   * @return true if the value is an object or array, which is opened in the stack
+   */
+  private boolean walkValue() {
+    char c = getTokenBegin();
 
+    if (c == '{') {
+      index++;
+      String path = getPath();
+      Map<String, Object> map = events.forObject(path);
+      if (map == null) {
+        events.startObject(path);
+        push(null, FRAME_MAP);
+        return true;
+      }
+      events.value(parseMap(map, null));
+    }
+    else if (c == '[') {
+      index++;
+      String path = getPath();
+      Collection list = events.forList(path);
+      if (list == null) {
+        events.startArray(path);
+        push(null, FRAME_LIST);
+        return true;
+      }
+      events.value(parseList(list, null));
     }
+    else if (c == '"' || c == '\'') {
+      events.value(extractString());
+    }
+    else {
+      events.value(extractLiteral());
+    }
+    return false;
+  }
 
-    return list;
+  /**
+   * Close the last frame of walking
+   */
+  private void walkPop() {
+    int top = --stackSize;
+    depth--;
+    if (stackKinds[top] == FRAME_MAP) {
+      closePath();
+      events.endObject();
+    }
+    else {
+      events.endArray();
+    }
   }
 
 
@@ -184,19 +1402,16 @@ class JsonParser {
    * Comments will be ignored.
    * index will point to this symbol.
    */
-  private char getTokenBegin() {
-    while (index < maxLength) {
-      char c = content.charAt(index);
-      if (Character.isLetterOrDigit(c) || c == '"' || c == '\'' || c == '@' || c == '#' || c == '$' || c == '_' || c == '{' || c == '}' || c == ':' || c == '[' || c == ']' || c == ',' || c == '+' || c == '-' || c == '.') {
-        return c;
-      }
-
-      if (c == '\\') {
+  char getTokenBegin() {
+    while (source.has(index)) {
+      index = source.skipSpaces(index);
+      char c = source.charAt(index);
+      if (isTokenBegin(c)) {
         return c;
       }
 
       if (c == '/') {
-        char next = content.charAt(index + 1);
+        char next = source.charAt(index + 1);
         if (next == '/') {
           skipToEndLine();
         }
@@ -206,14 +1421,17 @@ class JsonParser {
         }
       }
 
+      if (!source.has(index)) {
+        break;
+      }
       index++;
     }
     return 0;
   }
 
   private void skipToEndLine() {
-    while (index < maxLength) {
-      char c = content.charAt(index);
+    while (source.has(index)) {
+      char c = source.charAt(index);
       if (isLineTerminator(c)) {
         return;
       }
@@ -222,11 +1440,11 @@ class JsonParser {
   }
 
   private void skipToEndComent() {
-    while (index < maxLength) {
-      char c = content.charAt(index);
+    while (source.has(index)) {
+      char c = source.charAt(index);
       if (c == '*') {
         index++;
-        c = content.charAt(index);
+        c = source.charAt(index);
         if (c == '/') {
           return;
         }
@@ -237,73 +1455,188 @@ class JsonParser {
 
 
 
-  private String extractIdenty(Path path) {
-    char c = content.charAt(index);
+  String extractIdenty() {
+    scanIdenty();
+    return toKey(keyBuffer);
+  }
+
+  /**
+   * Extract key to the keyBuffer, without creating of string
+   */
+  private void scanIdenty() {
+    char c = source.charAt(index);
     char terminator = (c == '"' || c == '\'') ? c : 0;
 
-    StringBuilder b = new StringBuilder();
-    while (index < maxLength) {
-      c = content.charAt(index);
+    StringBuilder b = keyBuffer;
+    b.setLength(0);
+    long runStart = index;                  // plain characters from runStart to index are not appended yet
+    long readyEnd = source.readyEnd(index);
+    while (true) {
+      if (index >= readyEnd) {
+        source.append(b, runStart, index);
+        runStart = index;
+        if (!source.has(index)) {
+          break;
+        }
+        readyEnd = source.readyEnd(index);
+      }
+
+      c = source.charAt(index);
       if (c == terminator) {
+        source.append(b, runStart, index);
         index++;
+        runStart = index;
         if (b.length() == 0) {
           continue;
         }
-        return b.toString().trim();
+        return;
       }
       if (terminator == 0 && (c == ':' || c == '/' || isWhiteSpace(c))) {
-        return b.toString().trim();
+        source.append(b, runStart, index);
+        return;
       }
 
-      if (c  == '\\') {
-        c = getCharFromEscapedText();
+      boolean escaped = c == '\\';
+      int escapedChar = 0;
+      if (escaped) {
+        source.append(b, runStart, index);
+        escapedChar = getCharFromEscapedText();
+        c = Character.isBmpCodePoint(escapedChar) ? (char) escapedChar : Character.highSurrogate(escapedChar);
       }
       if ((terminator == 0 && (c== '\'' || c == '"')) || isLineTerminator(c)) {
-        throw new ParseException("Invalid character '"+ charToLog(c) +"' for identifier '"+ b.toString() +"' at position "+ index +", path '"+ path.getName() +"'.", index, path.getName());
+        if (!escaped) {
+          source.append(b, runStart, index);
+        }
+        String pathForLog = getPath();
+        throw new ParseException("Invalid character '"+ charToLog(c) +"' for identifier '"+ b.toString() +"' at position "+ index +", path '"+ pathForLog +"'.", index, pathForLog);
       }
-      else {
-        b.append(c);
+      if (escaped) {
+        b.appendCodePoint(escapedChar);
+        runStart = index + 1;
       }
       index++;
     }
+  }
+
+  /**
+   * Trimmed key from the buffer, from the cache if it is set
+   */
+  private String toKey(StringBuilder b) {
+    int start = 0;
+    int end = b.length();
+    while (start < end && b.charAt(start) <= ' ') {
+      start++;
+    }
+    while (start < end && b.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (keyCache != null) {
+      return keyCache.get(b, start, end);
+    }
+    return b.substring(start, end);
+  }
 
-    return b.toString().trim();
+  /**
+   * Extract the next value, objects and arrays are parsed entirely
+   */
+  Object extractValue() {
+    int base = stackSize;
+    Object value = startValue();
+    return value == OPENED ? parseFrames(base) : value;
   }
 
-  private Object extractValue(Path path) {
-    char c = getTokenBegin();
 
-    if (c == '{') {
-      index++;
-      Map<String, ?> map = parseMap(path);
-      return map;
-    }
-    if (c == '[') {
+  /**
+   * Skip the next value without creating of any object.
+   * As result index will point to the symbol after this value.
+   */
+  void skipValue() {
+    char c = getTokenBegin();
+    if (c == '{' || c == '[') {
       index++;
-      Collection list = parseList(path);
-      return list;
+      skipNested(1);
     }
-    if (c == '"' || c == '\'') {
-      String str = extractString();
-      return str;
+    else if (c == '"' || c == '\'') {
+      skipString();
     }
     else {
-      Object num = extractLiteral(path);
-      return num;
+      long start = index;
+      while (source.has(index)) {
+        c = source.charAt(index);
+        if (!(Character.isLetterOrDigit(c) || c == '.' || c == '+' || c == '-')) {
+          break;
+        }
+        index++;
+      }
+      if (index == start && source.has(index)) {
+        // not a value, it is reported in the same way as by parsing
+        extractLiteral();
+      }
+    }
+  }
+
+  /**
+   * Skip to the end of the current object or array without creating of any object.
+   * As result index will point to the symbol after the closing bracket.
+   * @param depth count of the opened brackets
+   */
+  void skipNested(int depth) {
+    while (depth > 0 && source.has(index)) {
+      char c = source.charAt(index);
+      if (c == '"' || c == '\'') {
+        skipString();
+        continue;
+      }
+      if (c == '/') {
+        char next = source.charAt(index + 1);
+        if (next == '/') {
+          skipToEndLine();
+        }
+        else if (next == '*') {
+          index += 2;
+          skipToEndComent();
+        }
+      }
+      else if (c == '{' || c == '[') {
+        depth++;
+      }
+      else if (c == '}' || c == ']') {
+        depth--;
+      }
+      index++;
     }
+  }
 
+  private void skipString() {
+    char terminator = source.charAt(index);
+    index++;
+    while (source.has(index)) {
+      index = source.scanString(index, terminator);
+      char c = source.charAt(index);
+      if (c == '\\') {
+        index += 2;
+      }
+      else if (c == terminator) {
+        index++;
+        return;
+      }
+    }
   }
 
 
-  private Object extractLiteral(Path path) {
-    StringBuilder b = new StringBuilder();
-    while (index < maxLength) {
-      char c = content.charAt(index);
-      if (c == '+' && b.length() == 0) {
+  Object extractLiteral() {
+    char[] b = literalBuffer;
+    int length = 0;
+    while (source.has(index)) {
+      char c = source.charAt(index);
+      if (c == '+' && length == 0) {
         index++;
       }
       else if (Character.isLetterOrDigit(c) || c == '.' || c == '+' || c == '-') {
-        b.append(c);
+        if (length == b.length) {
+          b = literalBuffer = Arrays.copyOf(b, length * 2);
+        }
+        b[length++] = c;
         index++;
       }
       else {
@@ -311,7 +1644,15 @@ class JsonParser {
       }
     }
 
-    String literal = b.toString().trim().toLowerCase();
+    if (isLazyNumbers && isStrictNumber(b, length)) {
+      return new JsonNumber(b, length);
+    }
+    Object value = decodeLiteral(b, length);
+    if (value != NOT_DECODED) {
+      return value;
+    }
+
+    String literal = new String(b, 0, length).trim().toLowerCase();
 
     switch (literal) {
       case NULL:
@@ -334,9 +1675,186 @@ class JsonParser {
       return detectNumber(literal);
     }
     catch (Exception ex) {
-      throw new ParseException("Invalid literal '" + literal + "' at position " + index + ", path '"+ path.getName() +"'.", index, path.getName());
+      String pathForLog = getPath();
+      throw new ParseException("Invalid literal '" + literal + "' at position " + index + ", path '"+ pathForLog +"'.", index, pathForLog);
+    }
+
+  }
+
+  /**
+   * Decode usual literals directly from characters, without creating of strings.
+   * Result is the same as from detectNumber().
+   * @return value, or NOT_DECODED if this literal must be decoded by detectNumber()
+   */
+  private Object decodeLiteral(char[] b, int length) {
+    if (length == 0) {
+      return NOT_DECODED;
+    }
+
+    char first = b[0];
+    boolean negative = first == '-';
+    int start = negative ? 1 : 0;
+    if (start == length) {
+      return NOT_DECODED;
+    }
+
+    first = b[start];
+    if (first == '.') {
+      return decodeDouble(b, start, length, negative);
+    }
+    if (first < '0' || first > '9') {
+      if (isWord(b, start, length, NULL) && !negative) {
+        return null;
+      }
+      if (isWord(b, start, length, BOOL_TRUE) && !negative) {
+        return true;
+      }
+      if (isWord(b, start, length, BOOL_FALSE) && !negative) {
+        return false;
+      }
+      if (isWord(b, start, length, NUM_INFINITY)) {
+        return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+      }
+      if (isWord(b, start, length, NUM_NAN) && !negative) {
+        return Double.NaN;
+      }
+      return NOT_DECODED;
+    }
+
+    // the same limits of length as in detectNumber()
+    int maxintlen = negative ? 10 : 9;
+    int maxlonglen = negative ? 19 : 18;
+
+    long value = 0;
+    if (first == '0' && length - start > 2 && (b[start + 1] == 'x' || b[start + 1] == 'X')) {
+      maxlonglen--;
+      if (length > maxlonglen) {
+        return NOT_DECODED;
+      }
+      for (int i = start + 2; i < length; i++) {
+        int digit = Character.digit(b[i], 16);
+        if (digit < 0 || b[i] > 'f') {
+          return NOT_DECODED;
+        }
+        value = (value << 4) | digit;
+      }
+    }
+    else {
+      for (int i = start + 1; i < length; i++) {
+        char c = b[i];
+        if (c == '.' || c == 'e' || c == 'E') {
+          return decodeDouble(b, start, length, negative);
+        }
+      }
+      if (length > maxlonglen || (first == '0' && length - start > 1)) {
+        return NOT_DECODED; // BigInteger or octal
+      }
+      for (int i = start; i < length; i++) {
+        char c = b[i];
+        if (c < '0' || c > '9') {
+          return NOT_DECODED;
+        }
+        value = value * 10 + (c - '0');
+      }
+    }
+
+    if (negative) {
+      value = -value;
+    }
+    if (length <= maxintlen) {
+      return (int) value;
+    }
+    return value;
+  }
+
+  /**
+   * Decode decimal number with a dot or an exponent, like the Double.parseDouble() does.
+   * @return Double, or NOT_DECODED if this literal must be decoded by detectNumber()
+   */
+  private Object decodeDouble(char[] b, int start, int length, boolean negative) {
+    long mantissa = 0;
+    int digits = 0;      // significant digits in the mantissa
+    int exponent = 0;
+    boolean hasDigits = false;
+    boolean afterDot = false;
+
+    int i = start;
+    for (; i < length; i++) {
+      char c = b[i];
+      if (c == '.' && !afterDot) {
+        afterDot = true;
+        continue;
+      }
+      if (c < '0' || c > '9') {
+        break;
+      }
+      hasDigits = true;
+      if (mantissa == 0 && c == '0') {
+        // leading zero
+      }
+      else if (digits < 19) {
+        mantissa = mantissa * 10 + (c - '0');
+        digits++;
+      }
+      else {
+        return NOT_DECODED;
+      }
+      if (afterDot) {
+        exponent--;
+      }
+    }
+    if (!hasDigits) {
+      return NOT_DECODED;
+    }
+
+    if (i < length) {
+      char c = b[i];
+      if (c != 'e' && c != 'E') {
+        return NOT_DECODED;
+      }
+      i++;
+      boolean negativeExp = false;
+      if (i < length && (b[i] == '+' || b[i] == '-')) {
+        negativeExp = b[i] == '-';
+        i++;
+      }
+      if (i == length) {
+        return NOT_DECODED;
+      }
+      int exp = 0;
+      for (; i < length; i++) {
+        c = b[i];
+        if (c < '0' || c > '9') {
+          return NOT_DECODED;
+        }
+        if (exp < 100000) {
+          exp = exp * 10 + (c - '0');
+        }
+      }
+      exponent += negativeExp ? -exp : exp;
     }
 
+    Double value = DoubleDecoder.decode(negative, mantissa, exponent);
+    return value != null ? value : NOT_DECODED;
+  }
+
+  /**
+   * Check that characters are equal to the word in lower case, ignoring case of characters
+   */
+  private static boolean isWord(char[] b, int start, int length, String word) {
+    if (length - start != word.length()) {
+      return false;
+    }
+    for (int i = start; i < length; i++) {
+      char c = b[i];
+      if (c >= 'A' && c <= 'Z') {
+        c += 'a' - 'A';
+      }
+      if (c != word.charAt(i - start)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   private Object detectNumber(String literal) {
@@ -374,29 +1892,72 @@ class JsonParser {
   }
 
 
-  private String extractString() {
-    char terminator = content.charAt(index);
+  String extractString() {
+    char terminator = source.charAt(index);
     index++;
 
-    StringBuilder b = new StringBuilder();
-    while (index < maxLength) {
-      char c = content.charAt(index);
+    StringBuilder b = stringBuffer;
+    b.setLength(0);
+    while (source.has(index)) {
+      long end = source.scanString(index, terminator);
+      if (end > index) {
+        source.append(b, index, end);
+        index = end;
+        continue;
+      }
+
+      char c = source.charAt(index);
       if (c == '\\') {
-        char ce = getCharFromEscapedText();
-        b.append(ce);
+        b.appendCodePoint(getCharFromEscapedText());
         index++;
       }
       else if (c == terminator) {
         index++;
         break;
       }
-      else {
-        b.append(c);
-        index++;
-      }
     }
 
-    return b.toString().trim();
+    // the same as trim()
+    int start = 0;
+    int end = b.length();
+    while (start < end && b.charAt(start) <= ' ') {
+      start++;
+    }
+    while (start < end && b.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    return b.substring(start, end);
+  }
+
+  /**
+   * Extract string value as a view over the incoming data, if the string has no escaped characters,
+   * and source supports views.
+   * @return the same text as from extractString()
+   */
+  private CharSequence extractStringView() {
+    char terminator = source.charAt(index);
+    long start = index + 1;
+    long end = source.scanString(start, terminator);
+    if (source.charAt(end) != terminator) {
+      return extractString();
+    }
+
+    // the same as trim()
+    long first = start;
+    long last = end;
+    while (first < last && source.charAt(first) <= ' ') {
+      first++;
+    }
+    while (last > first && source.charAt(last - 1) <= ' ') {
+      last--;
+    }
+
+    CharSequence view = source.view(first, last);
+    if (view == null) {
+      return extractString();
+    }
+    index = end + 1;
+    return view;
   }
 
   /**
@@ -405,12 +1966,12 @@ class JsonParser {
    *
    * As result index will refer to the last accepted character
    *
-   * @return matching character
+   * @return code point of matching character
    */
-  private char getCharFromEscapedText() {
+  private int getCharFromEscapedText() {
     char resultChar;
     index++;
-    char next = content.charAt(index);
+    char next = source.charAt(index);
     switch (next) {
       case 'b': resultChar = '\b'; break;
       case 'f': resultChar = '\f'; break;
@@ -423,29 +1984,43 @@ class JsonParser {
       case '"': resultChar = '"';  break;
       case '\\': resultChar = '\\'; break;
       case 'u':
-        StringBuilder bu = new StringBuilder();
-        bu.append(content.charAt(++index));
-        bu.append(content.charAt(++index));
-        bu.append(content.charAt(++index));
-        bu.append(content.charAt(++index));
-        int hexValU = Integer.parseInt(bu.toString(), 16);
+        char[] bu = literalBuffer;
+        int hexValU = 0;
+        for (int i = 0; i < 4; i++) {
+          bu[i] = source.charAt(++index);
+          int digit = Character.digit(bu[i], 16);
+          hexValU = hexValU < 0 || digit < 0 ? -1 : (hexValU << 4) | digit;
+        }
+        if (hexValU < 0) {
+          hexValU = Integer.parseInt(new String(bu, 0, 4), 16); // sign or invalid character
+        }
         resultChar = (char) hexValU;
         break;
 
       case 'x':
       case 'X':
-        StringBuilder bx = new StringBuilder();
-        char cx = content.charAt(index + 1); //index will refer to the last accepted character, therefore we need to use +1
+        long hexValX = 0;
+        boolean hasDigitsX = false;
+        char cx = source.charAt(index + 1); //index will refer to the last accepted character, therefore we need to use +1
         while (isHexadecimalChar(cx)) {
-          bx.append(cx);
+          if (hexValX <= Integer.MAX_VALUE) {
+            hexValX = (hexValX << 4) | Character.digit(cx, 16);
+          }
+          hasDigitsX = true;
           index++;
-          cx = content.charAt(index + 1);
+          cx = source.charAt(index + 1);
+        }
+        if (!hasDigitsX || hexValX > Integer.MAX_VALUE) {
+          throw new NumberFormatException("Invalid hexadecimal escape sequence at position " + index + ".");
         }
-        int hexValX = Integer.parseInt(bx.toString(), 16);
         resultChar = (char) hexValX;
         break;
 
-      default: return next;
+      default:
+        // any other character is itself, it can take many positions of source
+        int codePoint = source.codePointAt(index);
+        index += source.width(index) - 1;
+        return codePoint;
 
     }
 
@@ -453,13 +2028,20 @@ class JsonParser {
   }
 
 
+  /**
+   * Symbol, which can begin a token, all other symbols between tokens are skipped
+   */
+  static boolean isTokenBegin(char c) {
+    return Character.isLetterOrDigit(c) || c == '"' || c == '\'' || c == '@' || c == '#' || c == '$' || c == '_' || c == '{' || c == '}' || c == ':' || c == '[' || c == ']' || c == ',' || c == '+' || c == '-' || c == '.' || c == '\\';
+  }
+
   /**
    * Line terminator point out to end of single-line comment
    */
-  private boolean isLineTerminator(char c) {
+  static boolean isLineTerminator(char c) {
     return c == LF || c == CR || c == LS || c == PS;
   }
-  private boolean isWhiteSpace(char c) {
+  static boolean isWhiteSpace(char c) {
     switch (c) {
       case 0x0009:
       case 0x000A:
@@ -525,21 +2107,21 @@ class JsonParser {
 
   }
 
-  private Map<String, Object> getCollectionForObject(Path path) {
+  private Map<String, Object> getCollectionForObject() {
     Map<String, Object> result = null;
     if (listener != null) {
-      result = listener.forObject(path.getName());
+      result = listener.forObject(getPath());
     }
     if (result == null) {
-      result = new LinkedHashMap<>();
+      result = new CompactMap<>();
     }
     return result;
   }
 
-  private Collection getCollectionForList(Path path) {
+  private Collection getCollectionForList() {
     Collection result = null;
     if (listener != null) {
-      result = listener.forList(path.getName());
+      result = listener.forList(getPath());
     }
     if (result == null) {
       result = new ArrayList();
@@ -0,0 +1,622 @@
+package a2u.tn.utils.json;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Push parser of JSON with JSON5 syntax, for data which comes by parts, for example from a non-blocking channel.<br>
+ * Every part is parsed as soon as it is passed to feed(), and the parser keeps its position in json between calls,
+ * so only the parsed collections and the text of the last unfinished token are kept, and not the whole data.
+ * When the root object or array is closed, the result is available by getResult().
+ * <pre>
+ * JsonPushParser parser = TnJson.pushParser();
+ * ...
+ * buffer.flip();
+ * if (parser.feed(buffer)) {
+ *   Map&lt;String, Object&gt; request = parser.getResult();
+ * }
+ * </pre>
+ * Results are the same as from TnJson.parse(). Many jsons can follow one by one in the data,
+ * then results are returned in their order. Text between them is skipped, as the text around json in TnJson.parse().
+ * <br>
+ * Unlike TnJson.parse(), json which is not finished at the end of data throws ParseException.
+ * After ParseException the unfinished json and the rest of the part are dropped, and the parser is ready for the next json.
+ * This class is not thread-safe.
+ */
+public final class JsonPushParser {
+
+  // states of the tokenizer
+  private static final byte ROOT = 0;               // before the root object or array, other symbols are skipped
+  private static final byte SPACE = 1;              // between tokens
+  private static final byte SLASH = 2;              // after '/', which can begin a comment
+  private static final byte LINE_COMMENT = 3;
+  private static final byte BLOCK_COMMENT = 4;
+  private static final byte BLOCK_COMMENT_END = 5;  // after '*' in a block comment
+  private static final byte STRING = 6;
+  private static final byte STRING_ESCAPE = 7;      // after backslash in a string
+  private static final byte KEY = 8;                // key without quotes
+  private static final byte KEY_ESCAPE = 9;
+  private static final byte LITERAL = 10;           // number, boolean or null
+
+  // states of the opened object
+  private static final byte EXPECT_KEY = 0;
+  private static final byte EXPECT_COLON = 1;
+  private static final byte EXPECT_VALUE = 2;
+  private static final byte AFTER_VALUE = 3;
+
+  private static final byte FRAME_MAP = 0;
+  private static final byte FRAME_LIST = 1;
+  private static final byte FRAME_NUMBERS = 2;       // NumberList, until the first not number value
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+
+  private final IGetCollection listener;
+  private final boolean isNumberLists;
+  private final int maxDepth;
+  private final boolean isSharedKeys;
+  private final JsonParser decoder;                 // decodes finished tokens, the same as in the usual parsing
+  private KeyShapes shapes;
+
+  private final ArrayDeque<Map<String, Object>> results = new ArrayDeque<>();
+
+  private byte state = ROOT;
+  private long position;                            // position of the current symbol
+  private int utf8Code;                             // decoded bits of unfinished UTF-8 character
+  private int utf8Need;                             // count of missing bytes of this character
+
+  private final StringBuilder token = new StringBuilder();  // text of the unfinished token
+  private long tokenStart;
+  private char quote;                               // quote of the current string
+  private boolean isKeyString;                      // the current string is a key
+
+  private Map<String, Object> rootMap;              // result for the root array
+  private Object[] stack = new Object[16];          // opened objects and arrays
+  private byte[] kinds = new byte[16];
+  private byte[] states = new byte[16];             // states of the opened objects
+  private String[] keys = new String[16];           // current keys of the opened objects
+  private int stackSize;
+
+
+  JsonPushParser(TnJsonParserBuilder settings) {
+    this.listener = settings.listener;
+    this.isNumberLists = settings.isNumberLists && !settings.isLazyNumbers;
+    this.maxDepth = settings.maxDepth;
+    this.isSharedKeys = settings.isSharedKeys;
+    this.shapes = isSharedKeys ? new KeyShapes() : null;
+    this.decoder = new JsonParser(settings);
+  }
+
+
+  /**
+   * Parse the next part of json.
+   * @param chars array with data
+   * @param offset position of the first character of data
+   * @param length count of characters
+   * @return true if a result is available
+   * @throws ParseException on invalid json
+   */
+  public boolean feed(char[] chars, int offset, int length) {
+    try {
+      int end = offset + length;
+      for (int i = offset; i < end; i++) {
+        next(chars[i]);
+      }
+    }
+    catch (ParseException ex) {
+      clear();
+      throw ex;
+    }
+    return hasResult();
+  }
+
+  /**
+   * Parse the next part of UTF-8 encoded json.
+   * All remaining bytes of the buffer are read, a multibyte character can be split between parts.
+   * @param data buffer with data from position to limit
+   * @return true if a result is available
+   * @throws ParseException on invalid json
+   */
+  public boolean feed(ByteBuffer data) {
+    try {
+      while (data.hasRemaining()) {
+        nextByte(data.get() & 0xFF);
+      }
+    }
+    catch (ParseException ex) {
+      clear();
+      throw ex;
+    }
+    return hasResult();
+  }
+
+  /**
+   * End of data.
+   * After this call the parser can be used for new data.
+   * @return true if a result is available
+   * @throws ParseException if the last json is not finished
+   */
+  public boolean finish() {
+    try {
+      if (stackSize > 0) {
+        throw unexpected((char) 0, kinds[stackSize - 1] == FRAME_MAP ? "'}'" : "']'");
+      }
+    }
+    finally {
+      clear();
+    }
+    return hasResult();
+  }
+
+  /**
+   * Check that json is parsed
+   * @return true if getResult() will return a result
+   */
+  public boolean hasResult() {
+    return !results.isEmpty();
+  }
+
+  /**
+   * Take the next parsed json
+   * @return Map with data, the same as {@link TnJson#parse(String)}, or null if there is no result yet
+   */
+  public Map<String, Object> getResult() {
+    return results.poll();
+  }
+
+  /**
+   * Drop the unfinished json and all results, which were not taken
+   */
+  public void reset() {
+    clear();
+    results.clear();
+    if (isSharedKeys) {
+      shapes = new KeyShapes();
+    }
+  }
+
+
+  private void nextByte(int b) {
+    if (utf8Need > 0) {
+      if ((b & 0xC0) == 0x80) {
+        utf8Code = (utf8Code << 6) | (b & 0x3F);
+        utf8Need--;
+        if (utf8Need == 0) {
+          if (utf8Code >= Character.MIN_SUPPLEMENTARY_CODE_POINT && utf8Code <= Character.MAX_CODE_POINT) {
+            next(Character.highSurrogate(utf8Code));
+            next(Character.lowSurrogate(utf8Code));
+          }
+          else {
+            next(utf8Code <= Character.MAX_CODE_POINT ? (char) utf8Code : REPLACEMENT);
+          }
+        }
+        return;
+      }
+      utf8Need = 0;
+      next(REPLACEMENT);
+    }
+
+    if (b < 0x80) {
+      next((char) b);
+    }
+    else if ((b & 0xE0) == 0xC0) {
+      utf8Code = b & 0x1F;
+      utf8Need = 1;
+    }
+    else if ((b & 0xF0) == 0xE0) {
+      utf8Code = b & 0x0F;
+      utf8Need = 2;
+    }
+    else if ((b & 0xF8) == 0xF0) {
+      utf8Code = b & 0x07;
+      utf8Need = 3;
+    }
+    else {
+      next(REPLACEMENT);
+    }
+  }
+
+  private void next(char c) {
+    accept(c);
+    position++;
+  }
+
+  /**
+   * Accept the symbol by the tokenizer
+   */
+  private void accept(char c) {
+    switch (state) {
+      case ROOT:
+        if (c == '{' || c == '[') {
+          openRoot(c);
+        }
+        else if (c == '/') {
+          state = SLASH;
+        }
+        break;
+
+      case SPACE:
+        acceptToken(c);
+        break;
+
+      case SLASH:
+        if (c == '/') {
+          state = LINE_COMMENT;
+        }
+        else if (c == '*') {
+          state = BLOCK_COMMENT;
+        }
+        else {
+          state = spaceState();
+          accept(c);
+        }
+        break;
+
+      case LINE_COMMENT:
+        if (JsonParser.isLineTerminator(c)) {
+          state = spaceState();
+        }
+        break;
+
+      case BLOCK_COMMENT:
+        if (c == '*') {
+          state = BLOCK_COMMENT_END;
+        }
+        break;
+
+      case BLOCK_COMMENT_END:
+        if (c == '/') {
+          state = spaceState();
+        }
+        else if (c != '*') {
+          state = BLOCK_COMMENT;
+        }
+        break;
+
+      case STRING:
+        token.append(c);
+        if (c == '\\') {
+          state = STRING_ESCAPE;
+        }
+        else if (c == quote) {
+          state = SPACE;
+          endString();
+        }
+        break;
+
+      case STRING_ESCAPE:
+        token.append(c);
+        state = STRING;
+        break;
+
+      case KEY:
+        if (c == ':' || c == '/' || JsonParser.isWhiteSpace(c)) {
+          state = SPACE;
+          endKey();
+          accept(c);
+        }
+        else {
+          token.append(c);
+          if (c == '\\') {
+            state = KEY_ESCAPE;
+          }
+        }
+        break;
+
+      case KEY_ESCAPE:
+        token.append(c);
+        state = KEY;
+        break;
+
+      default: // LITERAL
+        if (isLiteral(c)) {
+          token.append(c);
+        }
+        else {
+          state = SPACE;
+          addValue(decode(LITERAL));
+          accept(c);
+        }
+        break;
+    }
+  }
+
+  /**
+   * Accept the symbol between tokens in the opened object or array
+   */
+  private void acceptToken(char c) {
+    if (c == '/') {
+      state = SLASH;
+      return;
+    }
+    if (!JsonParser.isTokenBegin(c)) {
+      return;
+    }
+
+    int top = stackSize - 1;
+    if (kinds[top] != FRAME_MAP) {
+      if (c == ']') {
+        close();
+      }
+      else if (c != ',') {
+        startValue(c);
+      }
+      return;
+    }
+
+    switch (states[top]) {
+      case EXPECT_KEY:
+        if (c == '}') {
+          close();
+        }
+        else if (c == '"' || c == '\'') {
+          startToken(STRING, c);
+          quote = c;
+          isKeyString = true;
+        }
+        else if (c == ':') {
+          token.setLength(0);
+          tokenStart = position;
+          endKey();
+          states[top] = EXPECT_VALUE;
+        }
+        else {
+          startToken(c == '\\' ? KEY_ESCAPE : KEY, c);
+        }
+        break;
+
+      case EXPECT_COLON:
+        if (c != ':') {
+          throw unexpected(c, "':'");
+        }
+        states[top] = EXPECT_VALUE;
+        break;
+
+      case EXPECT_VALUE:
+        startValue(c);
+        break;
+
+      default: // AFTER_VALUE
+        if (c == ',') {
+          states[top] = EXPECT_KEY;
+          keys[top] = null;
+        }
+        else if (c == '}') {
+          close();
+        }
+        else {
+          throw unexpected(c, "',' or '}'");
+        }
+        break;
+    }
+  }
+
+  private void startValue(char c) {
+    if (c == '{') {
+      open(newObject(), FRAME_MAP);
+    }
+    else if (c == '[') {
+      openList();
+    }
+    else if (c == '"' || c == '\'') {
+      startToken(STRING, c);
+      quote = c;
+      isKeyString = false;
+    }
+    else if (isLiteral(c)) {
+      startToken(LITERAL, c);
+    }
+    else {
+      throw unexpected(c, "value");
+    }
+  }
+
+  private void startToken(byte tokenState, char c) {
+    state = tokenState;
+    token.setLength(0);
+    token.append(c);
+    tokenStart = position;
+  }
+
+  private void endString() {
+    if (!isKeyString) {
+      addValue(decode(STRING));
+      return;
+    }
+    endKey();
+  }
+
+  private void endKey() {
+    int top = stackSize - 1;
+    keys[top] = (String) decode(KEY);
+    states[top] = EXPECT_COLON;
+  }
+
+  /**
+   * Decode the finished token by the usual parser
+   * @param kind KEY, STRING or LITERAL
+   */
+  private Object decode(byte kind) {
+    decoder.init(new CharSequenceSource(token));
+    try {
+      switch (kind) {
+        case KEY:
+          return decoder.extractIdenty();
+        case STRING:
+          return decoder.extractString();
+        default:
+          return decoder.extractLiteral();
+      }
+    }
+    catch (ParseException | NumberFormatException ex) {
+      String pathForLog = getPath();
+      String what = kind == LITERAL ? "literal" : kind == KEY ? "key" : "string";
+      throw new ParseException("Invalid " + what + " '" + token + "' at position " + tokenStart + ", path '" + pathForLog + "'.", tokenStart, pathForLog);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void addValue(Object value) {
+    int top = stackSize - 1;
+    switch (kinds[top]) {
+      case FRAME_MAP:
+        ((Map<String, Object>) stack[top]).put(keys[top], value);
+        states[top] = AFTER_VALUE;
+        break;
+      case FRAME_LIST:
+        ((Collection) stack[top]).add(value);
+        break;
+      default:
+        if (NumberList.isNumber(value)) {
+          ((NumberList) stack[top]).add((Number) value);
+        }
+        else {
+          toList(top).add(value);
+        }
+        break;
+    }
+  }
+
+  /**
+   * Change NumberList in the frame to the usual list
+   */
+  @SuppressWarnings("unchecked")
+  private Collection toList(int frame) {
+    Collection list = new ArrayList((NumberList) stack[frame]);
+    stack[frame] = list;
+    kinds[frame] = FRAME_LIST;
+    return list;
+  }
+
+  private void openRoot(char c) {
+    if (c == '{') {
+      open(newObject(), FRAME_MAP);
+    }
+    else {
+      rootMap = newObject();
+      openList();
+    }
+  }
+
+  /**
+   * Open array, arrays of numbers are returned as NumberList, if it is enabled and listener does not specify the collection
+   */
+  private void openList() {
+    Collection list = listener != null ? listener.forList(getPath()) : null;
+    if (list == null && isNumberLists) {
+      open(new NumberList(), FRAME_NUMBERS);
+    }
+    else {
+      open(list != null ? list : new ArrayList(), FRAME_LIST);
+    }
+  }
+
+  private void open(Object container, byte kind) {
+    if (stackSize == maxDepth) {
+      String pathForLog = getPath();
+      throw new ParseException("Nesting is deeper than " + maxDepth + " at position " + position + ", path '" + pathForLog + "'.", position, pathForLog);
+    }
+    if (stackSize == stack.length) {
+      int length = stackSize * 2;
+      stack = Arrays.copyOf(stack, length);
+      kinds = Arrays.copyOf(kinds, length);
+      states = Arrays.copyOf(states, length);
+      keys = Arrays.copyOf(keys, length);
+    }
+    stack[stackSize] = container;
+    kinds[stackSize] = kind;
+    states[stackSize] = EXPECT_KEY;
+    keys[stackSize] = null;
+    stackSize++;
+    state = SPACE;
+  }
+
+  /**
+   * Close the last object or array, and add it to the parent
+   */
+  @SuppressWarnings("unchecked")
+  private void close() {
+    int top = --stackSize;
+    Object container = stack[top];
+    stack[top] = null;
+    keys[top] = null;
+    if (kinds[top] == FRAME_MAP) {
+      if (container instanceof CompactMap) {
+        CompactMap compact = (CompactMap) container;
+        compact.trimToSize();
+        if (shapes != null) {
+          shapes.share(compact);
+        }
+      }
+    }
+    else if (kinds[top] == FRAME_NUMBERS) {
+      ((NumberList) container).trimToSize();
+    }
+
+    if (stackSize > 0) {
+      addValue(container);
+      return;
+    }
+    if (rootMap != null) {
+      rootMap.put(JsonParser.DEFAULT_LIST_KEY, container);
+      container = rootMap;
+      rootMap = null;
+    }
+    results.add((Map<String, Object>) container);
+    state = ROOT;
+  }
+
+  private Map<String, Object> newObject() {
+    Map<String, Object> result = listener != null ? listener.forObject(getPath()) : null;
+    return result != null ? result : new CompactMap<>();
+  }
+
+  /**
+   * Path of the current value, in the same format as in IGetCollection
+   */
+  private String getPath() {
+    StringBuilder b = new StringBuilder(JsonParser.PATH_ROOT_KEY);
+    for (int i = 0; i < stackSize; i++) {
+      if (keys[i] != null) {
+        b.append('.').append(keys[i]);
+      }
+    }
+    return b.toString();
+  }
+
+  /**
+   * State after a comment
+   */
+  private byte spaceState() {
+    return stackSize == 0 ? ROOT : SPACE;
+  }
+
+  /**
+   * Drop the unfinished json
+   */
+  private void clear() {
+    Arrays.fill(stack, 0, stackSize, null);
+    Arrays.fill(keys, 0, stackSize, null);
+    stackSize = 0;
+    rootMap = null;
+    state = ROOT;
+    position = 0;
+    utf8Need = 0;
+    token.setLength(0);
+  }
+
+  private static boolean isLiteral(char c) {
+    return Character.isLetterOrDigit(c) || c == '.' || c == '+' || c == '-';
+  }
+
+  private ParseException unexpected(char c, String expected) {
+    String pathForLog = getPath();
+    String what = c == 0 ? "Unexpected end of data" : "Invalid character '" + c + "'";
+    return new ParseException(what + " at position " + position + ", path '" + pathForLog + "', expected " + expected + ".", position, pathForLog);
+  }
+
+}
@@ -0,0 +1,347 @@
+package a2u.tn.utils.json;
+
+import java.util.Arrays;
+
+/**
+ * Pull reader of JSON with JSON5 syntax.<br>
+ * Returns json by tokens, one by one, without creating of maps and lists.
+ * <pre>
+ * JsonReader reader = TnJson.reader(json);
+ * while (reader.nextToken() != JsonReader.Token.END_DOCUMENT) {
+ *   if (reader.getToken() == JsonReader.Token.KEY &amp;&amp; reader.getString().equals("id")) {
+ *     reader.nextToken();
+ *     long id = reader.getLong();
+ *   }
+ * }
+ * </pre>
+ * This class is not thread-safe.
+ */
+public class JsonReader {
+
+  /**
+   * Type of token
+   */
+  public enum Token {
+    /** Begin of json-object, symbol '{' */
+    START_OBJECT,
+    /** End of json-object, symbol '}' */
+    END_OBJECT,
+    /** Begin of json-array, symbol '[' */
+    START_ARRAY,
+    /** End of json-array, symbol ']' */
+    END_ARRAY,
+    /** Key in a json-object, value available by getString() */
+    KEY,
+    /** String value, available by getString() */
+    STRING,
+    /** Number value, available by getNumber(), getLong(), getDouble() */
+    NUMBER,
+    /** Boolean value, available by getBoolean() */
+    BOOLEAN,
+    /** Value null */
+    NULL,
+    /** End of data */
+    END_DOCUMENT
+  }
+
+  private static final byte IN_OBJECT = 1;
+  private static final byte IN_ARRAY = 2;
+
+  private static final byte EXPECT_KEY = 1;
+  private static final byte EXPECT_VALUE = 2;
+  private static final byte AFTER_VALUE = 3;
+
+  private final JsonParser parser;
+
+  private byte[] containers = new byte[16];  // type of opened containers
+  private int depth;                         // count of opened containers
+  private byte state;                        // position in the current object
+
+  private Token token;
+  private String key;
+  private Object value;
+
+
+  JsonReader(JsonSource source) {
+    parser = new JsonParser();
+    parser.init(source);
+  }
+
+
+  /**
+   * Read next token.
+   * @return type of token
+   * @throws ParseException on invalid json
+   */
+  public Token nextToken() {
+    key = null;
+    value = null;
+
+    if (token == Token.END_DOCUMENT) {
+      return token;
+    }
+
+    if (depth == 0) {
+      if (token != null) {
+        return setToken(Token.END_DOCUMENT);
+      }
+      return readRoot();
+    }
+
+    if (containers[depth - 1] == IN_ARRAY) {
+      char c = parser.getTokenBegin();
+      while (c == ',') {
+        parser.skipChar();
+        c = parser.getTokenBegin();
+      }
+      if (c == ']') {
+        parser.skipChar();
+        return close(Token.END_ARRAY);
+      }
+      return readValue(c);
+    }
+
+    char c = parser.getTokenBegin();
+    if (state == AFTER_VALUE) {
+      if (c == '}') {
+        parser.skipChar();
+        return close(Token.END_OBJECT);
+      }
+      if (c != ',') {
+        throw invalid(c, "expected ',' or '}'");
+      }
+      parser.skipChar();
+      c = parser.getTokenBegin();
+      state = EXPECT_KEY;
+    }
+
+    if (state == EXPECT_KEY) {
+      if (c == '}') {
+        parser.skipChar();
+        return close(Token.END_OBJECT);
+      }
+      if (c == 0) {
+        throw invalid(c, "expected key");
+      }
+      parser.setPathKey(null);
+      key = parser.extractIdenty();
+      parser.setPathKey(key);
+
+      c = parser.getTokenBegin();
+      if (c != ':') {
+        throw invalid(c, "expected ':'");
+      }
+      parser.skipChar();
+      state = EXPECT_VALUE;
+      return setToken(Token.KEY);
+    }
+
+    state = AFTER_VALUE;
+    return readValue(c);
+  }
+
+  /**
+   * Current token.
+   * @return type of token, which was returned by last nextToken(), or null before first call
+   */
+  public Token getToken() {
+    return token;
+  }
+
+  /**
+   * Path of the current token, in the same format as in IGetCollection.<br>
+   * For a key this is a path of the value of this key, and for elements of array - path of the array.
+   * @return path starting from "root"
+   * @see IGetCollection#PATH_ROOT_KEY
+   */
+  public String getPath() {
+    return parser.getPath();
+  }
+
+  /**
+   * Text of the current token.
+   * @return name of key, string value, or text of the number and boolean, or null for null value
+   * @throws IllegalStateException if current token is not a key or a simple value
+   */
+  public String getString() {
+    if (token == null) {
+      throw wrongToken("a key or a simple value");
+    }
+    switch (token) {
+      case KEY:     return key;
+      case STRING:  return (String) value;
+      case NUMBER:
+      case BOOLEAN: return String.valueOf(value);
+      case NULL:    return null;
+      default:      throw wrongToken("a key or a simple value");
+    }
+  }
+
+  /**
+   * Value of the current number token.
+   * @return value as Integer, Long, BigInteger or Double
+   * @throws IllegalStateException if current token is not a number
+   */
+  public Number getNumber() {
+    if (token != Token.NUMBER) {
+      throw wrongToken("a number");
+    }
+    return (Number) value;
+  }
+
+  /**
+   * Value of the current number token.
+   * @return value converted to long
+   * @throws IllegalStateException if current token is not a number
+   */
+  public long getLong() {
+    return getNumber().longValue();
+  }
+
+  /**
+   * Value of the current number token.
+   * @return value converted to int
+   * @throws IllegalStateException if current token is not a number
+   */
+  public int getInt() {
+    return getNumber().intValue();
+  }
+
+  /**
+   * Value of the current number token.
+   * @return value converted to double
+   * @throws IllegalStateException if current token is not a number
+   */
+  public double getDouble() {
+    return getNumber().doubleValue();
+  }
+
+  /**
+   * Value of the current boolean token.
+   * @return value
+   * @throws IllegalStateException if current token is not a boolean
+   */
+  public boolean getBoolean() {
+    if (token != Token.BOOLEAN) {
+      throw wrongToken("a boolean");
+    }
+    return (Boolean) value;
+  }
+
+  /**
+   * Value of the current simple token, the same as in the Map returned by TnJson.parse().
+   * @return String, Number, Boolean or null
+   * @throws IllegalStateException if current token is not a simple value
+   */
+  public Object getValue() {
+    if (token == null) {
+      throw wrongToken("a simple value");
+    }
+    switch (token) {
+      case STRING:
+      case NUMBER:
+      case BOOLEAN:
+      case NULL:    return value;
+      default:      throw wrongToken("a simple value");
+    }
+  }
+
+  /**
+   * Skip the current value without creating of any object.
+   * <ul>
+   *   <li>for START_OBJECT and START_ARRAY skips all content, and current token will be END_OBJECT or END_ARRAY;</li>
+   *   <li>for KEY skips the value of this key, and next call of nextToken() will return next key or END_OBJECT;</li>
+   *   <li>for other tokens does nothing.</li>
+   * </ul>
+   */
+  public void skipValue() {
+    if (token == Token.START_OBJECT || token == Token.START_ARRAY) {
+      parser.skipNested(1);
+      close(token == Token.START_OBJECT ? Token.END_OBJECT : Token.END_ARRAY);
+    }
+    else if (token == Token.KEY) {
+      parser.skipValue();
+      state = AFTER_VALUE;
+    }
+  }
+
+
+  private Token readRoot() {
+    while (true) {
+      char c = parser.getTokenBegin();
+      if (c == 0) {
+        return setToken(Token.END_DOCUMENT);
+      }
+      if (c == '{' || c == '[') {
+        return readValue(c);
+      }
+      parser.skipChar();
+    }
+  }
+
+  private Token readValue(char c) {
+    if (c == '{') {
+      parser.skipChar();
+      open(IN_OBJECT);
+      state = EXPECT_KEY;
+      return setToken(Token.START_OBJECT);
+    }
+    if (c == '[') {
+      parser.skipChar();
+      open(IN_ARRAY);
+      return setToken(Token.START_ARRAY);
+    }
+    if (c == '"' || c == '\'') {
+      value = parser.extractString();
+      return setToken(Token.STRING);
+    }
+    if (c == 0) {
+      throw invalid(c, "expected value");
+    }
+
+    value = parser.extractLiteral();
+    if (value == null) {
+      return setToken(Token.NULL);
+    }
+    if (value instanceof Boolean) {
+      return setToken(Token.BOOLEAN);
+    }
+    return setToken(Token.NUMBER);
+  }
+
+  private void open(byte type) {
+    if (depth == containers.length) {
+      containers = Arrays.copyOf(containers, depth * 2);
+    }
+    containers[depth] = type;
+    depth++;
+    if (type == IN_OBJECT) {
+      parser.openPath();
+    }
+  }
+
+  private Token close(Token end) {
+    depth--;
+    if (containers[depth] == IN_OBJECT) {
+      parser.closePath();
+    }
+    state = AFTER_VALUE;
+    return setToken(end);
+  }
+
+  private Token setToken(Token t) {
+    token = t;
+    return t;
+  }
+
+  private ParseException invalid(char c, String expected) {
+    String pathName = parser.getPath();
+    String what = c == 0 ? "Unexpected end of data" : "Invalid character '" + c + "'";
+    return new ParseException(what + " at position " + parser.getIndex() + ", path '" + pathName + "', " + expected + ".", parser.getIndex(), pathName);
+  }
+
+  private IllegalStateException wrongToken(String expected) {
+    return new IllegalStateException("Current token " + token + " is not " + expected + ".");
+  }
+
+}
@@ -0,0 +1,114 @@
+package a2u.tn.utils.json;
+
+/**
+ * Incoming data for JsonParser.<br>
+ * Positions are absolute offsets from the beginning of the data, so a source may keep in memory
+ * only a window of the data around the current position.
+ */
+abstract class JsonSource {
+
+  /**
+   * Returned by charAt() for a positions after the end of data.
+   */
+  static final char END = 0;
+
+
+  /**
+   * Check that position is inside of data, and prepare it for reading.
+   * @param index absolute position
+   * @return false if position after the end of data
+   */
+  abstract boolean has(long index);
+
+  /**
+   * Character in the position.
+   * @param index absolute position
+   * @return character or END if position after the end of data
+   */
+  abstract char charAt(long index);
+
+  /**
+   * Count of positions, which are taken by the character in the position.<br>
+   * Every character of a text takes one position, a multibyte character of UTF-8 takes a position for every byte.
+   * @param index absolute position of the first position of character
+   * @return count of positions
+   */
+  int width(long index) {
+    return 1;
+  }
+
+  /**
+   * Code point of the character in the position
+   * @param index absolute position of the first position of character
+   * @return code point or END if position after the end of data
+   */
+  int codePointAt(long index) {
+    return charAt(index);
+  }
+
+  /**
+   * End of the data which is ready for reading without refill, starting from the position.<br>
+   * Text between the position and the returned value can be passed to append().
+   * @param from absolute position, which must be inside of data
+   * @return position after the last ready character
+   */
+  abstract long readyEnd(long from);
+
+  /**
+   * Skip ASCII whitespaces: space, tab, CR and LF.<br>
+   * The search may stop earlier, at the end of the data which is ready for reading.
+   * @param from position to start search
+   * @return position of first non whitespace character, or end of the ready data
+   */
+  long skipSpaces(long from) {
+    long i = from;
+    while (has(i)) {
+      char c = charAt(i);
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Find end of a plain text in a string value - the first terminator or backslash.<br>
+   * The search may stop earlier, at the end of the data which is ready for reading,
+   * therefore the caller must repeat search from the returned position.
+   * @param from position to start search
+   * @param terminator quote which closes the string
+   * @return position of terminator, backslash, or end of the ready data
+   */
+  abstract long scanString(long from, char terminator);
+
+  /**
+   * Append text between positions to the builder.<br>
+   * Both positions must be inside the data which was prepared by the last call of scanString() or readyEnd().
+   * @param b builder
+   * @param start first position, inclusive
+   * @param end last position, exclusive
+   */
+  abstract void append(StringBuilder b, long start, long end);
+
+  /**
+   * Text between positions as a view over the data, without copying.<br>
+   * Only sources which keep all data in memory unchanged can return a view.
+   * @param start first position, inclusive
+   * @param end last position, exclusive
+   * @return view of the text, or null if this source doesn't support views
+   */
+  CharSequence view(long start, long end) {
+    return null;
+  }
+
+  /**
+   * Source for reading of the same data by another thread at the same time.
+   * @return this if the source can be read by many threads, or a new source with the same data,
+   * or null if the data can be read only once
+   */
+  JsonSource share() {
+    return null;
+  }
+
+}
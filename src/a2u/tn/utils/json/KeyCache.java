@@ -0,0 +1,91 @@
+package a2u.tn.utils.json;
+
+/**
+ * Cache of keys for parsing.<br>
+ * In the typical json the same keys are repeated many times. With this cache the parser returns
+ * the same String instance for the same key, without creating a new String every time.<br>
+ * The cache has a fixed size: every key has a single place in the cache, and a new key replaces an old key in this place.
+ * Keys longer than MAX_KEY_LENGTH are not cached.<br>
+ * One cache can be safely used by many parsers in different threads.
+ *
+ * @see TnJsonParserBuilder#keyCache(KeyCache)
+ */
+public final class KeyCache {
+
+  /**
+   * Default count of keys in the cache
+   */
+  public static final int DEFAULT_SIZE = 1024;
+
+  /**
+   * Keys longer than this value are not cached
+   */
+  public static final int MAX_KEY_LENGTH = 64;
+
+  private final String[] keys;
+  private final int mask;
+
+
+  /**
+   * Create cache with default size
+   */
+  public KeyCache() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Create cache with specified size
+   * @param size count of keys, will be rounded up to power of two
+   */
+  public KeyCache(int size) {
+    int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+    keys = new String[capacity];
+    mask = capacity - 1;
+  }
+
+
+  /**
+   * Get key from the cache, or create it and put to the cache.<br>
+   * Races between threads are harmless: String is immutable, so any thread can see only a whole String,
+   * and in the worst case the key is created again.
+   *
+   * @param b buffer with characters of the key
+   * @param start first character of the key, inclusive
+   * @param end last character of the key, exclusive
+   * @return key
+   */
+  String get(CharSequence b, int start, int end) {
+    int length = end - start;
+    if (length > MAX_KEY_LENGTH) {
+      return b.subSequence(start, end).toString();
+    }
+
+    int hash = 0;  // the same as String.hashCode()
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + b.charAt(i);
+    }
+
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    String key = keys[slot];
+    if (key != null && isEqual(key, b, start, length)) {
+      return key;
+    }
+
+    key = b.subSequence(start, end).toString();
+    keys[slot] = key;
+    return key;
+  }
+
+  private static boolean isEqual(String key, CharSequence b, int start, int length) {
+    if (key.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (key.charAt(i) != b.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
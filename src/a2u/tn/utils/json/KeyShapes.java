@@ -0,0 +1,89 @@
+package a2u.tn.utils.json;
+
+import java.util.Arrays;
+
+/**
+ * Shapes of parsed objects: sequences of keys, which were seen by the parser.<br>
+ * Shapes are kept in a tree, where every node is a shape, and its children are shapes with one more key.
+ * Objects with the same keys in the same order get the same node, and share its array of keys and hash index,
+ * so in an array of records every record keeps only its values.
+ * <br>
+ * The count of shapes is limited, so objects used as dictionaries with unique keys do not fill the memory,
+ * such objects simply keep their own keys.
+ * The tree is used by one parser only, so it is not thread-safe.
+ * @see TnJsonParserBuilder#sharedKeys()
+ */
+final class KeyShapes {
+
+  private static final int MAX_SHAPES = 4096;
+  private static final int MAX_CHILDREN = 16;   // more different keys after a shape are not followed
+
+  private final Shape root = new Shape(null);
+  private int count;
+
+
+  /**
+   * Find the shape of the map, and share its keys with other maps of this shape
+   * @param map parsed map, trimmed to its size
+   */
+  void share(CompactMap<?, ?> map) {
+    int size = map.size();
+    if (size == 0) {
+      return;
+    }
+    Object[] keys = map.keyArray();
+    Shape shape = root;
+    for (int i = 0; i < size && shape != null; i++) {
+      shape = child(shape, keys[i]);
+    }
+    if (shape == null) {
+      return;
+    }
+
+    if (shape.keys == null) {
+      // the first map of this shape gives its arrays to the shape
+      shape.keys = keys.length == size ? keys : Arrays.copyOf(keys, size);
+      shape.index = map.indexArray();
+    }
+    map.share(shape.keys, shape.index);
+  }
+
+  /**
+   * @return child of the shape for the next key, or null if there are too many shapes
+   */
+  private Shape child(Shape shape, Object key) {
+    int hash = key.hashCode();
+    Shape[] children = shape.children;
+    for (Shape child : children) {
+      if (child.hash == hash && (child.key == key || child.key.equals(key))) {
+        return child;
+      }
+    }
+    if (count >= MAX_SHAPES || children.length >= MAX_CHILDREN) {
+      return null;
+    }
+    Shape child = new Shape(key);
+    shape.children = Arrays.copyOf(children, children.length + 1);
+    shape.children[children.length] = child;
+    count++;
+    return child;
+  }
+
+
+  private static final class Shape {
+    private static final Shape[] NO_CHILDREN = new Shape[0];
+
+    private final Object key;     // the last key of this shape
+    private final int hash;
+    private Shape[] children = NO_CHILDREN;
+
+    private Object[] keys;        // all keys of this shape, when a map of this shape was parsed
+    private int[] index;
+
+    Shape(Object key) {
+      this.key = key;
+      this.hash = key == null ? 0 : key.hashCode();
+    }
+  }
+
+}
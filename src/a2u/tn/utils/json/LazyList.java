@@ -0,0 +1,64 @@
+package a2u.tn.utils.json;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * json-array, which is parsed only by the first access to it.<br>
+ * Parsing creates ArrayList with simple values, nested objects and arrays are lazy too.
+ * Parsed content is kept, so every part of json is parsed only once.
+ * This list can be changed like the ArrayList, and can be used by many threads for reading.
+ */
+final class LazyList extends AbstractList<Object> implements RandomAccess {
+
+  private final JsonSource source;
+  private final long position;  // position of '['
+  private final String[] path;  // keys of the enclosing objects
+
+  private List<Object> content;
+
+
+  LazyList(JsonSource source, long position, String[] path) {
+    this.source = source;
+    this.position = position;
+    this.path = path;
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private synchronized List<Object> content() {
+    if (content == null) {
+      content = (List<Object>) new JsonParser(true).parseLazy(source, position, path);
+    }
+    return content;
+  }
+
+  @Override
+  public int size() {
+    return content().size();
+  }
+
+  @Override
+  public Object get(int index) {
+    return content().get(index);
+  }
+
+  @Override
+  public Object set(int index, Object element) {
+    return content().set(index, element);
+  }
+
+  @Override
+  public void add(int index, Object element) {
+    modCount++;
+    content().add(index, element);
+  }
+
+  @Override
+  public Object remove(int index) {
+    modCount++;
+    return content().remove(index);
+  }
+
+}
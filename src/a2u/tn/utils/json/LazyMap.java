@@ -0,0 +1,72 @@
+package a2u.tn.utils.json;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * json-object, which is parsed only by the first access to it.<br>
+ * Parsing creates CompactMap with simple values, nested objects and arrays are lazy too.
+ * Parsed content is kept, so every part of json is parsed only once.
+ * This map can be changed like the LinkedHashMap, and can be used by many threads for reading.
+ */
+final class LazyMap extends AbstractMap<String, Object> {
+
+  private final JsonSource source;
+  private final long position;  // position of '{'
+  private final String[] path;  // keys of the enclosing objects
+
+  private Map<String, Object> content;
+
+
+  LazyMap(JsonSource source, long position, String[] path) {
+    this.source = source;
+    this.position = position;
+    this.path = path;
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private synchronized Map<String, Object> content() {
+    if (content == null) {
+      content = (Map<String, Object>) new JsonParser(true).parseLazy(source, position, path);
+    }
+    return content;
+  }
+
+  @Override
+  public int size() {
+    return content().size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return content().containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    return content().get(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    return content().put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    return content().remove(key);
+  }
+
+  @Override
+  public void clear() {
+    content().clear();
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return content().entrySet();
+  }
+
+}
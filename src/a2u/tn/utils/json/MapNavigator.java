@@ -1,6 +1,5 @@
 package a2u.tn.utils.json;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -15,41 +14,83 @@ import java.util.Map;
  */
 public class MapNavigator {
 
+  /**
+   * Count of compiled paths in the cache of fromPath()
+   */
+  private static final int CACHE_SIZE = 256;
+
+  /**
+   * Recently used paths. Every path has a single place in the cache, and a new path replaces an old path in this place.
+   * Races between threads are harmless, because CompiledPath is immutable.
+   */
+  private static final CompiledPath[] CACHE = new CompiledPath[CACHE_SIZE];
+
+  /**
+   * Recently used queries, in the same way as paths
+   */
+  private static final CompiledQuery[] QUERY_CACHE = new CompiledQuery[CACHE_SIZE];
+
   private MapNavigator() {
     //hide this
   }
 
 
   /**
-   * Find value from map by path.
+   * Find value from map by path.<br>
+   * Paths are compiled and cached, so repeated calls with the same path don't split it again.
    * @param map map with values
    * @param path path with string-keys and dot as separator
    * @return value
    */
   public static Object fromPath(Map map, String path) {
+    return compile(path).fromMap(map);
+  }
 
-    Object res = map;
-    List<String> pathList =  Arrays.asList(path.split("\\."));
-
-    StringBuilder node = new StringBuilder();
-
-    for (String pat : pathList) {
-      if (res == null) {
-        return null;
-      }
-      if (res instanceof Map) {
-        res = ((Map) res).get(pat);
-      }
-      else if (res instanceof List) {
-        int ix = Integer.parseInt(pat);
-        res = ((List) res).get(ix);
-      }
-      else {
-        throw new RuntimeException("Incorrect path: node=" + node.toString() + " is not a Map or List.");
-      }
-      node.append(".").append(pat);
+  /**
+   * Compile path for repeated use.
+   * @param path path with string-keys and dot as separator
+   * @return immutable compiled path
+   */
+  public static CompiledPath compile(String path) {
+    int hash = path.hashCode();
+    int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+    CompiledPath compiled = CACHE[slot];
+    if (compiled != null && compiled.getPath().equals(path)) {
+      return compiled;
     }
+    compiled = new CompiledPath(path);
+    CACHE[slot] = compiled;
+    return compiled;
+  }
+
+  /**
+   * Select values from map by query, similar to JSONPath, such as "items[?(@.count &gt; 0)].price" or "..id".<br>
+   * Queries are compiled and cached, so repeated calls with the same query don't parse it again.
+   * @param data Map or List with values
+   * @param query query, see CompiledQuery for syntax
+   * @return found values, or empty list
+   * @throws IllegalArgumentException if query is invalid
+   * @see CompiledQuery
+   */
+  public static List<Object> select(Object data, String query) {
+    return compileQuery(query).select(data);
+  }
 
-    return res;
+  /**
+   * Compile query for repeated use.
+   * @param query query, see CompiledQuery for syntax
+   * @return immutable compiled query
+   * @throws IllegalArgumentException if query is invalid
+   */
+  public static CompiledQuery compileQuery(String query) {
+    int hash = query.hashCode();
+    int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+    CompiledQuery compiled = QUERY_CACHE[slot];
+    if (compiled != null && compiled.getQuery().equals(query)) {
+      return compiled;
+    }
+    compiled = new CompiledQuery(query);
+    QUERY_CACHE[slot] = compiled;
+    return compiled;
   }
 }
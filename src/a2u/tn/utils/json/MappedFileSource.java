@@ -0,0 +1,70 @@
+package a2u.tn.utils.json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Source with UTF-8 encoded data in a file.<br>
+ * The file is mapped to memory by windows, so the data is not copied to the heap,
+ * and files larger than 2GB are mapped window by window.
+ */
+final class MappedFileSource extends Utf8Source {
+
+  static final int WINDOW_SIZE = 1 << 30;
+
+  /**
+   * How many bytes before requested position stay in the window after remapping.
+   */
+  private static final int KEEP = 16;
+
+  private final FileChannel channel;
+  private final long size;
+  private final int windowSize;
+
+
+  MappedFileSource(FileChannel channel) throws IOException {
+    this(channel, WINDOW_SIZE);
+  }
+
+  MappedFileSource(FileChannel channel, int windowSize) throws IOException {
+    this(channel, channel.size(), windowSize);
+  }
+
+  /**
+   * Source without window, the first window is mapped by the first reading
+   */
+  private MappedFileSource(FileChannel channel, long size, int windowSize) {
+    this.channel = channel;
+    this.size = size;
+    this.windowSize = Math.max(windowSize, KEEP * 4);
+  }
+
+
+  @Override
+  boolean fill(long index) {
+    if (index >= size) {
+      return false;
+    }
+    long start = Math.max(0, index - KEEP);
+    long length = Math.min(windowSize, size - start);
+    try {
+      setWindow(channel.map(FileChannel.MapMode.READ_ONLY, start, length), start, start + length == size);
+    }
+    catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return true;
+  }
+
+  @Override
+  CharSequence view(long start, long end) {
+    return null; // a view would keep the whole mapped window
+  }
+
+  @Override
+  JsonSource share() {
+    return new MappedFileSource(channel, size, windowSize); // own window for every thread
+  }
+
+}
@@ -0,0 +1,363 @@
+package a2u.tn.utils.json;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List of numbers, which keeps values in an array of primitives instead of an array of objects.<br>
+ * Elements can be Integer, Long or Double, and get() returns them with the same type as they were added.
+ * While all elements have the same type, they are kept in int[], long[] or double[].
+ * When an element of other type is added, storage is upgraded to long[] with the type of every element,
+ * so the list is still compact.
+ * <br>
+ * This list can be changed like the ArrayList, but it is not thread-safe.
+ * @see TnJsonParserBuilder#numberLists()
+ */
+public final class NumberList extends AbstractList<Number> implements RandomAccess, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final byte EMPTY = 0;
+  private static final byte INT = 1;
+  private static final byte LONG = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte MIXED = 4;   // values in longs, types in kinds
+
+  private static final int DEFAULT_CAPACITY = 10;
+
+  private byte type = EMPTY;
+  private int size;
+
+  private int[] ints;
+  private long[] longs;     // long values, or bits of double values in the mixed list
+  private double[] doubles;
+  private byte[] kinds;     // types of elements in the mixed list
+
+
+  /**
+   * Create empty list
+   */
+  public NumberList() {
+    //empty
+  }
+
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Number get(int index) {
+    checkIndex(index, size);
+    switch (type) {
+      case INT:
+        return ints[index];
+      case LONG:
+        return longs[index];
+      case DOUBLE:
+        return doubles[index];
+      default:
+        return box(kinds[index], longs[index]);
+    }
+  }
+
+  /**
+   * Get element as long without creating of object
+   * @param index index of element
+   * @return value, doubles are converted like by (long) cast
+   */
+  public long getLong(int index) {
+    checkIndex(index, size);
+    switch (type) {
+      case INT:
+        return ints[index];
+      case LONG:
+        return longs[index];
+      case DOUBLE:
+        return (long) doubles[index];
+      default:
+        return kinds[index] == DOUBLE ? (long) Double.longBitsToDouble(longs[index]) : longs[index];
+    }
+  }
+
+  /**
+   * Get element as double without creating of object
+   * @param index index of element
+   * @return value
+   */
+  public double getDouble(int index) {
+    checkIndex(index, size);
+    switch (type) {
+      case INT:
+        return ints[index];
+      case LONG:
+        return longs[index];
+      case DOUBLE:
+        return doubles[index];
+      default:
+        return kinds[index] == DOUBLE ? Double.longBitsToDouble(longs[index]) : longs[index];
+    }
+  }
+
+  /**
+   * @return all elements as long values
+   * @see #getLong(int)
+   */
+  public long[] toLongArray() {
+    if (type == LONG) {
+      return Arrays.copyOf(longs, size);
+    }
+    long[] result = new long[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = getLong(i);
+    }
+    return result;
+  }
+
+  /**
+   * @return all elements as double values
+   * @see #getDouble(int)
+   */
+  public double[] toDoubleArray() {
+    if (type == DOUBLE) {
+      return Arrays.copyOf(doubles, size);
+    }
+    double[] result = new double[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = getDouble(i);
+    }
+    return result;
+  }
+
+  /**
+   * @throws IllegalArgumentException if element is not Integer, Long or Double
+   */
+  @Override
+  public Number set(int index, Number element) {
+    checkIndex(index, size);
+    byte kind = kindOf(element);
+    Number old = get(index);
+    prepare(kind, size);
+    store(index, kind, element);
+    return old;
+  }
+
+  /**
+   * @throws IllegalArgumentException if element is not Integer, Long or Double
+   */
+  @Override
+  public boolean add(Number element) {
+    byte kind = kindOf(element);
+    prepare(kind, size + 1);
+    store(size++, kind, element);
+    modCount++;
+    return true;
+  }
+
+  /**
+   * @throws IllegalArgumentException if element is not Integer, Long or Double
+   */
+  @Override
+  public void add(int index, Number element) {
+    checkIndex(index, size + 1);
+    byte kind = kindOf(element);
+    prepare(kind, size + 1);
+    move(index, index + 1, size - index);
+    store(index, kind, element);
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Number remove(int index) {
+    Number old = get(index);
+    move(index + 1, index, size - index - 1);
+    size--;
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    type = EMPTY;
+    size = 0;
+    ints = null;
+    longs = null;
+    doubles = null;
+    kinds = null;
+    modCount++;
+  }
+
+  /**
+   * Trim the capacity of this list to its size, like the ArrayList.trimToSize() does
+   */
+  public void trimToSize() {
+    resize(size);
+  }
+
+
+  /**
+   * Make storage ready for the element of this type
+   * @param kind type of element
+   * @param capacity needed capacity
+   */
+  private void prepare(byte kind, int capacity) {
+    if (type == EMPTY) {
+      type = kind;
+      resize(Math.max(capacity, DEFAULT_CAPACITY));
+      return;
+    }
+    if (type != kind && type != MIXED) {
+      toMixed();
+    }
+    int length = capacity();
+    if (capacity > length) {
+      resize(Math.max(capacity, length + (length >> 1)));
+    }
+  }
+
+  /**
+   * Upgrade storage to the list with different types
+   */
+  private void toMixed() {
+    int length = capacity();
+    long[] values = new long[length];
+    byte[] types = new byte[length];
+    for (int i = 0; i < size; i++) {
+      switch (type) {
+        case INT:
+          values[i] = ints[i];
+          break;
+        case LONG:
+          values[i] = longs[i];
+          break;
+        default:
+          values[i] = Double.doubleToRawLongBits(doubles[i]);
+          break;
+      }
+      types[i] = type;
+    }
+    ints = null;
+    doubles = null;
+    longs = values;
+    kinds = types;
+    type = MIXED;
+  }
+
+  private void store(int index, byte kind, Number element) {
+    switch (type) {
+      case INT:
+        ints[index] = element.intValue();
+        break;
+      case LONG:
+        longs[index] = element.longValue();
+        break;
+      case DOUBLE:
+        doubles[index] = element.doubleValue();
+        break;
+      default:
+        longs[index] = kind == DOUBLE ? Double.doubleToRawLongBits(element.doubleValue()) : element.longValue();
+        kinds[index] = kind;
+        break;
+    }
+  }
+
+  private void move(int from, int to, int count) {
+    switch (type) {
+      case INT:
+        System.arraycopy(ints, from, ints, to, count);
+        break;
+      case DOUBLE:
+        System.arraycopy(doubles, from, doubles, to, count);
+        break;
+      case MIXED:
+        System.arraycopy(kinds, from, kinds, to, count);
+        System.arraycopy(longs, from, longs, to, count);
+        break;
+      case LONG:
+        System.arraycopy(longs, from, longs, to, count);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private int capacity() {
+    switch (type) {
+      case INT:
+        return ints.length;
+      case DOUBLE:
+        return doubles.length;
+      case LONG:
+      case MIXED:
+        return longs.length;
+      default:
+        return 0;
+    }
+  }
+
+  private void resize(int length) {
+    switch (type) {
+      case INT:
+        ints = ints == null ? new int[length] : Arrays.copyOf(ints, length);
+        break;
+      case LONG:
+        longs = longs == null ? new long[length] : Arrays.copyOf(longs, length);
+        break;
+      case DOUBLE:
+        doubles = doubles == null ? new double[length] : Arrays.copyOf(doubles, length);
+        break;
+      case MIXED:
+        longs = Arrays.copyOf(longs, length);
+        kinds = Arrays.copyOf(kinds, length);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static Number box(byte kind, long value) {
+    switch (kind) {
+      case INT:
+        return (int) value;
+      case LONG:
+        return value;
+      default:
+        return Double.longBitsToDouble(value);
+    }
+  }
+
+  /**
+   * @return type of element
+   * @throws IllegalArgumentException if element is not Integer, Long or Double
+   */
+  private static byte kindOf(Object element) {
+    if (element instanceof Integer) {
+      return INT;
+    }
+    if (element instanceof Long) {
+      return LONG;
+    }
+    if (element instanceof Double) {
+      return DOUBLE;
+    }
+    throw new IllegalArgumentException("NumberList can contain only Integer, Long and Double, but not " + element + ".");
+  }
+
+  /**
+   * Check that value can be kept in this list
+   */
+  static boolean isNumber(Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Double;
+  }
+
+  private static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+}
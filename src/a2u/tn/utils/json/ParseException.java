@@ -5,10 +5,10 @@ package a2u.tn.utils.json;
  */
 public class ParseException extends RuntimeException {
 
-  private int position;
+  private long position;
   private String path;
 
-  public ParseException(String s, int position, String path) {
+  public ParseException(String s, long position, String path) {
     super(s);
     this.position = position;
     this.path = path;
@@ -16,9 +16,17 @@ public class ParseException extends RuntimeException {
 
   /**
    * Position in json where occur error.
-   * @return position of invalid symbol
+   * @return position of invalid symbol, or Integer.MAX_VALUE if position is further
+   * @see #getLongPosition()
    */
   public int getPosition() {
+    return (int) Math.min(position, Integer.MAX_VALUE);
+  }
+  /**
+   * Position in json where occur error, for data longer than 2GB.
+   * @return position of invalid symbol
+   */
+  public long getLongPosition() {
     return position;
   }
   /**
@@ -0,0 +1,190 @@
+package a2u.tn.utils.json;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Tree of the paths, which must be parsed.<br>
+ * Paths have the same format as in MapNavigator: keys with dot as separator, such as "obj.list.0.key".
+ * Path may start with "root", as paths in IGetCollection.<br>
+ * In an array a number selects only one element, and a key is applied to every element,
+ * so path "list.key" selects key in every element of list.
+ * <br>
+ * The tree is not changed after creation, so it can be used by many threads.
+ */
+final class PathTree {
+
+  private static final PathTree[] NO_CHILDREN = new PathTree[0];
+
+  private final String key;
+  private final int hash;
+  private final int index;                    // key as index of array element, or -1
+
+  private boolean isSelected;                 // the whole value must be parsed
+  private PathTree[] children = NO_CHILDREN;
+  private boolean hasKeys;                    // has not numeric children, which are applied to every element of array
+  private int maxIndex = -1;                  // max numeric child
+
+
+  private PathTree(String key) {
+    this.key = key;
+    this.hash = key.hashCode();
+    this.index = toIndex(key);
+  }
+
+
+  /**
+   * Create tree for the paths
+   * @param paths paths in the format of MapNavigator
+   * @return root of the tree
+   */
+  static PathTree compile(Collection<String> paths) {
+    PathTree root = new PathTree(JsonParser.PATH_ROOT_KEY);
+    for (String path : paths) {
+      String[] keys = path.split("\\.");
+      int start = keys.length > 0 && keys[0].equals(JsonParser.PATH_ROOT_KEY) ? 1 : 0;
+      PathTree node = root;
+      for (int i = start; i < keys.length; i++) {
+        node = node.add(keys[i]);
+      }
+      node.isSelected = true;
+    }
+    root.mergeElements();
+    return root;
+  }
+
+  /**
+   * The whole value must be parsed
+   */
+  boolean isSelected() {
+    return isSelected;
+  }
+
+  /**
+   * Child for the key of object.<br>
+   * Key is compared without creating of string, spaces around it are ignored like in parsed keys.
+   * @param b buffer with the key
+   * @return child, or null if this key is not selected
+   */
+  PathTree child(CharSequence b) {
+    int start = 0;
+    int end = b.length();
+    while (start < end && b.charAt(start) <= ' ') {
+      start++;
+    }
+    while (start < end && b.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + b.charAt(i);
+    }
+
+    for (PathTree child : children) {
+      if (child.hash == h && equals(child.key, b, start, end)) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Child for the element of array
+   * @param index index of element
+   * @return child for this index, or this node if keys are applied to every element, or null if element is not selected
+   */
+  PathTree element(int index) {
+    if (index <= maxIndex) {
+      for (PathTree child : children) {
+        if (child.index == index) {
+          return child;
+        }
+      }
+    }
+    return hasKeys ? this : null;
+  }
+
+  /**
+   * Check that elements of array after the index are not selected
+   */
+  boolean isAfterLast(int index) {
+    return !hasKeys && index > maxIndex;
+  }
+
+
+  private PathTree add(String childKey) {
+    for (PathTree child : children) {
+      if (child.key.equals(childKey)) {
+        return child;
+      }
+    }
+    PathTree child = new PathTree(childKey);
+    children = Arrays.copyOf(children, children.length + 1);
+    children[children.length - 1] = child;
+
+    if (child.index < 0) {
+      hasKeys = true;
+    }
+    else {
+      maxIndex = Math.max(maxIndex, child.index);
+    }
+    return child;
+  }
+
+  /**
+   * Keys, which are applied to every element of array, are applied to elements selected by number too
+   */
+  private void mergeElements() {
+    if (hasKeys && maxIndex >= 0) {
+      for (PathTree element : children) {
+        if (element.index >= 0) {
+          for (PathTree child : children) {
+            if (child.index < 0) {
+              element.merge(child);
+            }
+          }
+        }
+      }
+    }
+    for (PathTree child : children) {
+      child.mergeElements();
+    }
+  }
+
+  private void merge(PathTree other) {
+    PathTree node = add(other.key);
+    node.isSelected |= other.isSelected;
+    for (PathTree child : other.children) {
+      node.merge(child);
+    }
+  }
+
+  /**
+   * @return index of element, or -1 if key is not a number
+   */
+  private static int toIndex(String key) {
+    if (key.isEmpty() || key.length() > 9) {
+      return -1;
+    }
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+    }
+    return Integer.parseInt(key);
+  }
+
+  private static boolean equals(String key, CharSequence b, int start, int end) {
+    if (key.length() != end - start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (key.charAt(i - start) != b.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,123 @@
+package a2u.tn.utils.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Source which reads data from Reader by chunks.<br>
+ * In memory is kept only a fixed-size window of data, therefore parser can not return
+ * further back than a few characters before last read position.
+ */
+final class ReaderSource extends JsonSource {
+
+  static final int BUFFER_SIZE = 8192;
+
+  /**
+   * How many characters before requested position stay in the window after refill.
+   */
+  private static final int KEEP = 16;
+
+  private final Reader reader;
+  private final char[] buf;
+  private long bufStart;     // absolute position of buf[0]
+  private int bufLength;     // count of characters in buf
+  private boolean eof;
+
+
+  ReaderSource(Reader reader) {
+    this(reader, BUFFER_SIZE);
+  }
+
+  ReaderSource(Reader reader, int bufferSize) {
+    this.reader = reader;
+    this.buf = new char[Math.max(bufferSize, KEEP * 4)];
+  }
+
+
+  @Override
+  boolean has(long index) {
+    return index < bufStart + bufLength || fill(index);
+  }
+
+  @Override
+  char charAt(long index) {
+    long rel = index - bufStart;
+    if (rel >= bufLength) {
+      if (!fill(index)) {
+        return END;
+      }
+      rel = index - bufStart;
+    }
+    return buf[(int) rel];
+  }
+
+  @Override
+  long readyEnd(long from) {
+    has(from);
+    return bufStart + bufLength;
+  }
+
+  @Override
+  long scanString(long from, char terminator) {
+    if (!has(from)) {
+      return from;
+    }
+    int i = (int) (from - bufStart);
+    while (i < bufLength) {
+      char c = buf[i];
+      if (c == terminator || c == '\\') {
+        break;
+      }
+      i++;
+    }
+    return bufStart + i;
+  }
+
+  @Override
+  void append(StringBuilder b, long start, long end) {
+    if (end > start) {
+      b.append(buf, (int) (start - bufStart), (int) (end - start));
+    }
+  }
+
+
+  /**
+   * Move window to the position and read next chunk.
+   * @return false if position after the end of data
+   */
+  private boolean fill(long index) {
+    if (index < bufStart) {
+      throw new IllegalStateException("Position " + index + " already has left the buffer.");
+    }
+    long bufEnd = bufStart + bufLength;
+    long keepFrom = Math.max(bufStart, Math.min(index, bufEnd) - KEEP);
+    int shift = (int) (keepFrom - bufStart);
+    if (shift > 0) {
+      bufLength -= shift;
+      System.arraycopy(buf, shift, buf, 0, bufLength);
+      bufStart = keepFrom;
+    }
+
+    try {
+      while (!eof && index >= bufStart + bufLength) {
+        if (bufLength == buf.length) {
+          throw new IllegalStateException("Position " + index + " is too far from the buffer.");
+        }
+        int count = reader.read(buf, bufLength, buf.length - bufLength);
+        if (count < 0) {
+          eof = true;
+        }
+        else {
+          bufLength += count;
+        }
+      }
+    }
+    catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+
+    return index < bufStart + bufLength;
+  }
+
+}
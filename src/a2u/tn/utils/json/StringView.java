@@ -0,0 +1,118 @@
+package a2u.tn.utils.json;
+
+import java.nio.ByteBuffer;
+
+/**
+ * String value, which is not copied from the incoming data until it is needed.<br>
+ * For characters this is a view over the incoming string, for UTF-8 bytes the text is decoded on the first access.
+ * The incoming data must not be changed while this value is used.<br>
+ * Two views are equal if they have the same text, for comparison with a String use toString().
+ */
+final class StringView implements CharSequence {
+
+  private final CharSequence chars; // incoming characters, or null for bytes
+  private final ByteBuffer bytes;   // incoming bytes, or null for characters
+  private final int start;
+  private final int end;
+
+  private String string;            // materialized text
+
+
+  StringView(CharSequence chars, int start, int end) {
+    this.chars = chars;
+    this.bytes = null;
+    this.start = start;
+    this.end = end;
+  }
+
+  StringView(ByteBuffer bytes, int start, int end) {
+    this.chars = null;
+    this.bytes = bytes;
+    this.start = start;
+    this.end = end;
+  }
+
+
+  @Override
+  public int length() {
+    if (chars != null) {
+      return end - start;
+    }
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (chars != null) {
+      if (index < 0 || index >= end - start) {
+        throw new StringIndexOutOfBoundsException(index);
+      }
+      return chars.charAt(start + index);
+    }
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int from, int to) {
+    if (chars != null) {
+      if (from < 0 || to > end - start || from > to) {
+        throw new StringIndexOutOfBoundsException("begin " + from + ", end " + to + ", length " + (end - start));
+      }
+      return new StringView(chars, start + from, start + to);
+    }
+    return toString().subSequence(from, to);
+  }
+
+  @Override
+  public String toString() {
+    String s = string;
+    if (s == null) {
+      if (chars != null) {
+        s = chars.subSequence(start, end).toString();
+      }
+      else {
+        ByteBuffer text = bytes.duplicate();
+        text.limit(end).position(start);
+        StringBuilder b = new StringBuilder(end - start);
+        new Utf8Source(text).append(b, 0, end - start);
+        s = b.toString();
+      }
+      string = s;
+    }
+    return s;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof StringView)) {
+      return false;
+    }
+    StringView other = (StringView) obj;
+    int length = length();
+    if (length != other.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (charAt(i) != other.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    if (chars == null) {
+      return toString().hashCode();
+    }
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + chars.charAt(i);
+    }
+    return h;
+  }
+
+}
@@ -1,6 +1,18 @@
 package a2u.tn.utils.json;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Using face
@@ -18,6 +30,13 @@ public class TnJson {
    */
   public static final String DEFAULT_LIST_KEY = JsonParser.DEFAULT_LIST_KEY;
 
+  /**
+   * Parser for every thread, so buffers of parser are not created again by every call.
+   * Buffers which are grown by a big json are not kept after the call.
+   * @see #releaseParser()
+   */
+  private static final ThreadLocal<JsonParser> PARSERS = ThreadLocal.withInitial(JsonParser::new);
+
 
   /**
    * JSON generation mode
@@ -58,6 +77,14 @@ public class TnJson {
     return new TnJsonBuilder();
   }
 
+  /**
+   * Create configurator for parsing
+   * @return new builder with default settings
+   */
+  public static TnJsonParserBuilder parser() {
+    return new TnJsonParserBuilder();
+  }
+
 
   /**
    * Convert Object to JSON.<br>
@@ -93,7 +120,7 @@ public class TnJson {
    * Every value in the resulting Map will be:
    * <ul>
    *   <li>or a simple value (string or number or boolean),</li>
-   *   <li>or a LinkedHashMap with nested json-object,</li>
+   *   <li>or a CompactMap with nested json-object,</li>
    *   <li>or an ArrayList of values.</li>
    * </ul>
    *
@@ -105,14 +132,7 @@ public class TnJson {
    *
    */
   public static Map<String, Object> parse(String data) {
-    try {
-      JsonParser p = new JsonParser();
-      return p.doParse(data);
-    }
-    catch (ParseException px) {
-      //Hide unnecessary log trace. If you want full trace - change it.
-      throw new ParseException(px.getMessage(), px.getPosition(), px.getPath());
-    }
+    return parsePooled(new CharSequenceSource(data));
   }
 
   /**
@@ -129,13 +149,310 @@ public class TnJson {
    * @see JsonParser#DEFAULT_LIST_KEY
    */
   public static Map<String, Object> parse(String data, IGetCollection listener) {
+    return parse(new CharSequenceSource(data), new JsonParser(listener));
+  }
+
+  /**
+   * Parsing only the given paths of JSON-string to Map.<br>
+   * All other values are skipped without creating of any object, so the result contains only the selected values,
+   * and objects and arrays on the way to them.
+   * @see TnJsonParserBuilder#paths(Set)
+   *
+   * @param data incoming JSON-string.
+   * @param paths paths of the needed values in the format of MapNavigator, such as "obj.list.0.key".
+   * @return sparse Map with data.
+   */
+  public static Map<String, Object> parsePaths(String data, Set<String> paths) {
+    return parser().paths(paths).parse(data);
+  }
+
+  /**
+   * Parsing JSON from the Reader to Map.<br>
+   * Data is read by small chunks, so the whole JSON is never kept in memory, only the result.<br>
+   * The reader will not be closed.
+   *
+   * @param reader incoming JSON.
+   * @return Map with data, the same as {@link #parse(String)}.
+   * @throws java.io.UncheckedIOException on error while reading
+   */
+  public static Map<String, Object> parse(Reader reader) {
+    return parsePooled(new ReaderSource(reader));
+  }
+
+  /**
+   * Parsing JSON from the InputStream to Map.<br>
+   * Data is read by small chunks, so the whole JSON is never kept in memory, only the result.<br>
+   * The stream will not be closed.
+   *
+   * @param in incoming JSON.
+   * @param charset encoding of the data.
+   * @return Map with data, the same as {@link #parse(String)}.
+   * @throws java.io.UncheckedIOException on error while reading
+   */
+  public static Map<String, Object> parse(InputStream in, Charset charset) {
+    return parsePooled(new ReaderSource(new InputStreamReader(in, charset)));
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON to Map.<br>
+   * Bytes are parsed directly, without decoding the whole data to a string.
+   * Position in a ParseException is a position of byte in the array.
+   *
+   * @param data array with incoming JSON.
+   * @param offset position of the first byte of JSON.
+   * @param length count of bytes in JSON.
+   * @return Map with data, the same as {@link #parse(String)}.
+   */
+  public static Map<String, Object> parse(byte[] data, int offset, int length) {
+    return parsePooled(new Utf8Source(ByteBuffer.wrap(data, offset, length)));
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON to Map.<br>
+   * Bytes from position to limit of the buffer are parsed directly, without decoding the whole data to a string.
+   * Position of the buffer will not be changed.
+   * Position in a ParseException is a position of byte relative to the position of the buffer.
+   *
+   * @param data buffer with incoming JSON.
+   * @return Map with data, the same as {@link #parse(String)}.
+   */
+  public static Map<String, Object> parse(ByteBuffer data) {
+    return parsePooled(new Utf8Source(data));
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON file to Map.<br>
+   * The file is mapped to memory, so data is read by the operating system and is not copied to the heap.
+   * Files larger than 2GB are mapped by windows.
+   * Position in a ParseException is a position of byte in the file.
+   *
+   * @param file file with incoming JSON.
+   * @return Map with data, the same as {@link #parse(String)}.
+   * @throws java.io.UncheckedIOException on error while reading
+   */
+  public static Map<String, Object> parse(Path file) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return parsePooled(new MappedFileSource(channel));
+    }
+    catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Remove the parser, which is kept by static methods parse() for the current thread.<br>
+   * The parser keeps only small buffers, but it is referenced by the thread until the thread ends.
+   * If the library is deployed with an application to a container, which has its own pool of threads,
+   * call this method when the thread finishes work with json, for example at the end of a request,
+   * so the classes of the application can be unloaded after undeploy.
+   */
+  public static void releaseParser() {
+    PARSERS.remove();
+  }
+
+  static Map<String, Object> parse(Path file, JsonParser parser) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return parse(new MappedFileSource(channel), parser);
+    }
+    catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Parsing JSON-string to Map, which parses nested objects and arrays only when they are accessed.<br>
+   * The first pass parses only the root object, and for nested objects and arrays keeps only their positions.
+   * Each of them is parsed by the first call of its method, and the result is kept.
+   * This is useful for big json, when you need only a few values from it.<br>
+   * Errors in nested objects and arrays are thrown as ParseException by the first access to them.
+   *
+   * @param data incoming JSON-string.
+   * @return Map with data, the same as {@link #parse(String)}, but nested objects and arrays are lazy.
+   */
+  public static Map<String, Object> parseLazy(String data) {
+    return parse(new CharSequenceSource(data), new JsonParser(true));
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON to Map, which parses nested objects and arrays only when they are accessed.<br>
+   * The array is used by the result, so it must not be changed.
+   * @see #parseLazy(String)
+   *
+   * @param data array with incoming JSON.
+   * @param offset position of the first byte of JSON.
+   * @param length count of bytes in JSON.
+   * @return Map with data, the same as {@link #parse(byte[], int, int)}, but nested objects and arrays are lazy.
+   */
+  public static Map<String, Object> parseLazy(byte[] data, int offset, int length) {
+    return parse(new Utf8Source(ByteBuffer.wrap(data, offset, length)), new JsonParser(true));
+  }
+
+  /**
+   * Parsing newline-delimited JSON (NDJSON, JSON Lines) from the Reader, where every line is a separate JSON.<br>
+   * Lines are read sequentially, and after parallel() they are parsed by batches in many threads.
+   * Parsers are reused by threads of the stream. The stream is ordered, unordered() allows to get records as soon as they are parsed.
+   * Empty lines are skipped, the number of the line is added to the message of ParseException. The reader will not be closed.
+   * <pre>
+   * TnJson.parseLines(reader).parallel().forEach(record -&gt; ...);
+   * </pre>
+   *
+   * @param reader incoming NDJSON.
+   * @return stream of records, every record is the same as from {@link #parse(String)}.
+   * @throws java.io.UncheckedIOException on error while reading
+   */
+  public static Stream<Map<String, Object>> parseLines(Reader reader) {
+    return JsonLines.parse(reader, parser());
+  }
+
+  /**
+   * Parsing UTF-8 encoded file with newline-delimited JSON (NDJSON, JSON Lines), where every line is a separate JSON.<br>
+   * The file is mapped to memory and, after parallel(), is split to parts by line boundaries,
+   * so every thread reads and parses its own part of file with its own parser.
+   * The stream is ordered, unordered() allows to get records as soon as they are parsed. Empty lines are skipped.<br>
+   * The stream must be closed for closing the file:
+   * <pre>
+   * try (Stream&lt;Map&lt;String, Object&gt;&gt; records = TnJson.parseLines(file)) {
+   *   records.parallel().forEach(record -&gt; ...);
+   * }
+   * </pre>
+   *
+   * @param file file with incoming NDJSON.
+   * @return stream of records, every record is the same as from {@link #parse(String)}.
+   * @throws java.io.UncheckedIOException on error while reading
+   */
+  public static Stream<Map<String, Object>> parseLines(Path file) {
+    return JsonLines.parse(file, parser());
+  }
+
+  /**
+   * Parsing elements of the root array from the Reader one by one, for a very big array of records.<br>
+   * Every element is parsed when the stream takes it, so processing begins immediately,
+   * and only the current element is kept in memory. The reader will not be closed.
+   * For the root object the stream returns its entries as Map.Entry with a key and a value.
+   * <pre>
+   * TnJson.streamElements(reader).forEach(record -&gt; ...);
+   * </pre>
+   *
+   * @param reader incoming JSON.
+   * @return ordered stream of elements, every element is the same as in the result of {@link #parse(Reader)}.
+   */
+  public static Stream<Object> streamElements(Reader reader) {
+    return JsonElements.stream(new ReaderSource(reader), parser());
+  }
+
+  /**
+   * Parsing JSON-string with passing data to the listener by events, without creating of the result Map.
+   * @see IJsonListener
+   *
+   * @param data incoming JSON-string.
+   * @param listener callback listener.
+   */
+  public static void walk(String data, IJsonListener listener) {
+    walk(new CharSequenceSource(data), new JsonParser(), listener);
+  }
+
+  /**
+   * Parsing JSON from the Reader with passing data to the listener by events, without creating of the result Map.<br>
+   * Data is read by small chunks, so memory is used only by the listener. The reader will not be closed.
+   * @see IJsonListener
+   *
+   * @param reader incoming JSON.
+   * @param listener callback listener.
+   * @throws java.io.UncheckedIOException on error while reading
+   */
+  public static void walk(Reader reader, IJsonListener listener) {
+    walk(new ReaderSource(reader), new JsonParser(), listener);
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON with passing data to the listener by events, without creating of the result Map.
+   * @see IJsonListener
+   *
+   * @param data array with incoming JSON.
+   * @param offset position of the first byte of JSON.
+   * @param length count of bytes in JSON.
+   * @param listener callback listener.
+   */
+  public static void walk(byte[] data, int offset, int length, IJsonListener listener) {
+    walk(new Utf8Source(ByteBuffer.wrap(data, offset, length)), new JsonParser(), listener);
+  }
+
+  /**
+   * Create pull reader for the JSON-string.
+   * @param data incoming JSON-string.
+   * @return reader, which returns json by tokens
+   * @see JsonReader
+   */
+  public static JsonReader reader(String data) {
+    return new JsonReader(new CharSequenceSource(data));
+  }
+
+  /**
+   * Create pull reader for JSON from the Reader.
+   * Data is read by small chunks, the reader will not be closed.
+   * @param reader incoming JSON.
+   * @return reader, which returns json by tokens
+   * @see JsonReader
+   */
+  public static JsonReader reader(Reader reader) {
+    return new JsonReader(new ReaderSource(reader));
+  }
+
+  /**
+   * Create pull reader for UTF-8 encoded JSON.
+   * @param data array with incoming JSON.
+   * @param offset position of the first byte of JSON.
+   * @param length count of bytes in JSON.
+   * @return reader, which returns json by tokens
+   * @see JsonReader
+   */
+  public static JsonReader reader(byte[] data, int offset, int length) {
+    return new JsonReader(new Utf8Source(ByteBuffer.wrap(data, offset, length)));
+  }
+
+  /**
+   * Create push parser for JSON, which comes by parts, for example from a non-blocking channel.
+   * @return parser, which parses every part as soon as it is passed
+   * @see JsonPushParser
+   */
+  public static JsonPushParser pushParser() {
+    return new JsonPushParser(parser());
+  }
+
+  static void walk(JsonSource source, JsonParser parser, IJsonListener listener) {
+    try {
+      parser.doWalk(source, listener);
+    }
+    catch (ParseException px) {
+      //Hide unnecessary log trace. If you want full trace - change it.
+      throw new ParseException(px.getMessage(), px.getLongPosition(), px.getPath());
+    }
+  }
+
+  /**
+   * Parse by the parser of the current thread, it keeps its buffers between calls, if they are not too big.
+   * If it is used now, for example by a listener which parses another json, then a new parser is used.
+   */
+  private static Map<String, Object> parsePooled(JsonSource source) {
+    JsonParser parser = PARSERS.get();
+    if (parser.isBusy()) {
+      return parse(source, new JsonParser());
+    }
+    try {
+      return parse(source, parser);
+    }
+    finally {
+      parser.trim();
+    }
+  }
+
+  static Map<String, Object> parse(JsonSource source, JsonParser parser) {
     try {
-      JsonParser p = new JsonParser(listener);
-      return p.doParse(data);
+      return parser.doParse(source);
     }
     catch (ParseException px) {
       //Hide unnecessary log trace. If you want full trace - change it.
-      throw new ParseException(px.getMessage(), px.getPosition(), px.getPath());
+      throw new ParseException(px.getMessage(), px.getLongPosition(), px.getPath());
     }
   }
 
@@ -0,0 +1,108 @@
+package a2u.tn.utils.json;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Reusable json parser.<br>
+ * The parser keeps its buffers, its key cache and shapes of objects for shared keys between calls,
+ * so parsing of many small jsons does not create them again every time.<br>
+ * The parser is not thread-safe: every thread must use its own parser, for example from ThreadLocal.
+ * <pre>
+ * private static final ThreadLocal&lt;TnJsonParser&gt; PARSER = ThreadLocal.withInitial(() -&gt; TnJson.parser().build());
+ * ...
+ * Map&lt;String, Object&gt; result = PARSER.get().parse(json);
+ * </pre>
+ */
+public final class TnJsonParser {
+
+  private final JsonParser parser;
+
+
+  TnJsonParser(TnJsonParserBuilder settings) {
+    this.parser = new JsonParser(settings, settings.keyCache != null ? settings.keyCache : new KeyCache());
+  }
+
+
+  /**
+   * Parsing JSON-string
+   * @param data incoming JSON-string.
+   * @return Map with data, the same as {@link TnJson#parse(String)}.
+   */
+  public Map<String, Object> parse(String data) {
+    return TnJson.parse(new CharSequenceSource(data), parser());
+  }
+
+  /**
+   * Parsing JSON from the Reader
+   * @param reader incoming JSON, will not be closed.
+   * @return Map with data, the same as {@link TnJson#parse(Reader)}.
+   */
+  public Map<String, Object> parse(Reader reader) {
+    return TnJson.parse(new ReaderSource(reader), parser());
+  }
+
+  /**
+   * Parsing JSON from the InputStream
+   * @param in incoming JSON, will not be closed.
+   * @param charset encoding of the data.
+   * @return Map with data, the same as {@link TnJson#parse(InputStream, Charset)}.
+   */
+  public Map<String, Object> parse(InputStream in, Charset charset) {
+    return TnJson.parse(new ReaderSource(new InputStreamReader(in, charset)), parser());
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON
+   * @param data array with incoming JSON.
+   * @param offset position of the first byte of JSON.
+   * @param length count of bytes in JSON.
+   * @return Map with data, the same as {@link TnJson#parse(byte[], int, int)}.
+   */
+  public Map<String, Object> parse(byte[] data, int offset, int length) {
+    return TnJson.parse(new Utf8Source(ByteBuffer.wrap(data, offset, length)), parser());
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON
+   * @param data buffer with incoming JSON.
+   * @return Map with data, the same as {@link TnJson#parse(ByteBuffer)}.
+   */
+  public Map<String, Object> parse(ByteBuffer data) {
+    return TnJson.parse(new Utf8Source(data), parser());
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON file
+   * @param file file with incoming JSON.
+   * @return Map with data, the same as {@link TnJson#parse(Path)}.
+   */
+  public Map<String, Object> parse(Path file) {
+    return TnJson.parse(file, parser());
+  }
+
+  /**
+   * Return buffers to the initial size, and forget shapes of objects, if keys are shared.<br>
+   * Buffers grow by big strings and deep jsons, so after parsing of a big json
+   * reset() allows to free memory, if the parser is kept for a long time.
+   */
+  public void reset() {
+    parser().reset();
+  }
+
+  /**
+   * @throws IllegalStateException if this parser is used now, for example by the listener of this parser
+   */
+  private JsonParser parser() {
+    if (parser.isBusy()) {
+      throw new IllegalStateException("Parser is already used, nested parsing needs another parser.");
+    }
+    return parser;
+  }
+
+}
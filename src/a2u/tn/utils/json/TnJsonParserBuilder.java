@@ -0,0 +1,327 @@
+package a2u.tn.utils.json;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * json parsing configurator.<br>
+ * Settings are not changed while parsing, so one configured builder can be used by many threads.
+ * <pre>
+ * private static final TnJsonParserBuilder PARSER = TnJson.parser().keyCache(new KeyCache());
+ * ...
+ * Map&lt;String, Object&gt; result = PARSER.parse(json);
+ * </pre>
+ */
+public class TnJsonParserBuilder {
+  IGetCollection listener = null;
+  KeyCache keyCache = null;
+  boolean isLazyStrings = false;
+  PathTree paths = null;
+  boolean isParallel = false;
+  boolean isNumberLists = false;
+  boolean isLazyNumbers = false;
+  boolean isSharedKeys = false;
+  int maxDepth = Integer.MAX_VALUE;
+  boolean isStrict = false;
+
+
+  TnJsonParserBuilder() {
+    //hide constructor
+  }
+
+
+  /**
+   * Set listener for specifying of returned collections
+   * @param listener callback listener @see IGetCollection
+   * @return this builder
+   */
+  public TnJsonParserBuilder listener(IGetCollection listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Use the cache for keys, so repeated keys will be the same String instance
+   * @param keyCache cache, can be shared by many builders and threads @see KeyCache
+   * @return this builder
+   */
+  public TnJsonParserBuilder keyCache(KeyCache keyCache) {
+    this.keyCache = keyCache;
+    return this;
+  }
+
+  /**
+   * Return string values without escaped characters as CharSequence views over the incoming data,
+   * instead of copying every value to a new String.<br>
+   * Text of a view is copied only by the first call of toString().
+   * Views are used only for data in memory: String, byte array and ByteBuffer,
+   * and this data must not be changed while the result is used.
+   * @return this builder
+   */
+  public TnJsonParserBuilder lazyStrings() {
+    this.isLazyStrings = true;
+    return this;
+  }
+
+  /**
+   * Parse only values in the paths, all other values are skipped without creating of any object.<br>
+   * Paths have the same format as in MapNavigator, such as "obj.list.0.key", and may start with "root" as in IGetCollection.
+   * In an array a number selects one element, and a key is applied to every element.
+   * Objects and arrays on the way to the selected values are kept, skipped elements of array before a selected one are replaced by null.
+   * @param paths paths of the needed values
+   * @return this builder
+   * @see MapNavigator#fromPath(Map, String)
+   */
+  public TnJsonParserBuilder paths(Set<String> paths) {
+    this.paths = PathTree.compile(paths);
+    return this;
+  }
+
+  /**
+   * Parse elements of a root array by all cores.<br>
+   * The array is parsed in two passes: a fast scan finds the elements and splits them to parts,
+   * and then parts are parsed by ForkJoinPool and are merged in the order of elements.
+   * This is useful for a very big json with a single array, from a String, bytes or a file.
+   * Data from a Reader or an InputStream, json with a root object, and parsing on a single core are as usual.<br>
+   * Listener, if it is set, will be called by many threads.
+   * Ignored when paths() are set.
+   * @return this builder
+   */
+  public TnJsonParserBuilder parallel() {
+    this.isParallel = true;
+    return this;
+  }
+
+  /**
+   * Return arrays of numbers as NumberList, which keeps values in int[], long[] or double[]
+   * instead of an object for every element.<br>
+   * Elements have the same types as in the ArrayList: Integer, Long or Double.
+   * Array with other values, like strings, nulls, objects or big numbers, is returned as usual.
+   * Ignored for arrays, which collections are specified by the listener.
+   * @return this builder
+   * @see NumberList
+   */
+  public TnJsonParserBuilder numberLists() {
+    this.isNumberLists = true;
+    return this;
+  }
+
+  /**
+   * Return decimal numbers as JsonNumber, which keeps the text of number and decodes it only when its value is needed.<br>
+   * Numbers, which are not read, are not decoded at all, and TnJson.toJson() writes them with the original text.
+   * JsonNumber.toBigDecimal() gives the exact value of decimal fractions.
+   * Hexadecimal numbers, numbers with a leading zero, a leading or trailing dot, Infinity and NaN are decoded as usual.
+   * Arrays of numbers are returned as usual lists, numberLists() is ignored.
+   * @return this builder
+   * @see JsonNumber
+   */
+  public TnJsonParserBuilder lazyNumbers() {
+    this.isLazyNumbers = true;
+    return this;
+  }
+
+  /**
+   * Objects with the same keys in the same order share one array of keys, so every object keeps only its values.<br>
+   * This is useful for arrays of records, where all records have the same keys.
+   * Shared keys are copied, when a key is added to the object or removed from it.
+   * Ignored for objects, which collections are specified by the listener.
+   * @return this builder
+   * @see CompactMap
+   */
+  public TnJsonParserBuilder sharedKeys() {
+    this.isSharedKeys = true;
+    return this;
+  }
+
+  /**
+   * Limit the count of nested objects and arrays, for json from untrusted sources.<br>
+   * Objects and arrays are parsed without recursion, so deep json does not overflow the stack of thread,
+   * but every nested object takes memory. By default the depth is not limited.
+   * @param maxDepth max count of nested objects and arrays, the root object has depth 1
+   * @return this builder
+   * @throws IllegalArgumentException if maxDepth is less than 1
+   */
+  public TnJsonParserBuilder maxDepth(int maxDepth) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("Max depth must be positive, but it is " + maxDepth + ".");
+    }
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  /**
+   * Parse standard json by RFC 8259 only, without JSON5 extensions, by a faster loop.<br>
+   * Keys must be in double quotes, strings must be in double quotes with escapes of standard json,
+   * literals true, false and null must be in lower case, numbers must be decimal,
+   * elements must be separated by commas without a comma before the closing bracket, and comments are not allowed.
+   * Root must be an object or an array, and only whitespaces can follow it.
+   * Other json throws ParseException.
+   * Keys and strings are returned as they are, without trimming of whitespaces.
+   * Numbers get the same types as usual.<br>
+   * Parsing of paths() and parallel(), streamElements(), walk() and the push parser don't check standard json,
+   * therefore they throw IllegalStateException with this setting.
+   * @return this builder
+   */
+  public TnJsonParserBuilder strict() {
+    this.isStrict = true;
+    return this;
+  }
+
+
+  /**
+   * Create parser for repeated parsing by parameters in this builder.<br>
+   * The parser keeps its buffers between calls, so it is faster for many small jsons, but it is not thread-safe.
+   * @return new parser
+   * @see TnJsonParser
+   */
+  public TnJsonParser build() {
+    return new TnJsonParser(this);
+  }
+
+  /**
+   * Create push parser by parameters in this builder, for JSON which comes by parts.<br>
+   * Settings paths(), parallel() and lazyStrings() are not used by the push parser.
+   * @return new parser
+   * @throws IllegalStateException if strict() is set
+   * @see JsonPushParser
+   */
+  public JsonPushParser pushParser() {
+    checkNotStrict("push parser");
+    return new JsonPushParser(this);
+  }
+
+  /**
+   * Parsing JSON-string by parameters in this builder
+   * @param data incoming JSON-string.
+   * @return Map with data, the same as {@link TnJson#parse(String)}.
+   */
+  public Map<String, Object> parse(String data) {
+    return parse(new CharSequenceSource(data));
+  }
+
+  /**
+   * Parsing JSON from the Reader by parameters in this builder
+   * @param reader incoming JSON, will not be closed.
+   * @return Map with data, the same as {@link TnJson#parse(Reader)}.
+   */
+  public Map<String, Object> parse(Reader reader) {
+    return parse(new ReaderSource(reader));
+  }
+
+  /**
+   * Parsing JSON from the InputStream by parameters in this builder
+   * @param in incoming JSON, will not be closed.
+   * @param charset encoding of the data.
+   * @return Map with data, the same as {@link TnJson#parse(InputStream, Charset)}.
+   */
+  public Map<String, Object> parse(InputStream in, Charset charset) {
+    return parse(new ReaderSource(new InputStreamReader(in, charset)));
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON by parameters in this builder
+   * @param data array with incoming JSON.
+   * @param offset position of the first byte of JSON.
+   * @param length count of bytes in JSON.
+   * @return Map with data, the same as {@link TnJson#parse(byte[], int, int)}.
+   */
+  public Map<String, Object> parse(byte[] data, int offset, int length) {
+    return parse(new Utf8Source(ByteBuffer.wrap(data, offset, length)));
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON by parameters in this builder
+   * @param data buffer with incoming JSON.
+   * @return Map with data, the same as {@link TnJson#parse(ByteBuffer)}.
+   */
+  public Map<String, Object> parse(ByteBuffer data) {
+    return parse(new Utf8Source(data));
+  }
+
+  /**
+   * Parsing UTF-8 encoded JSON file by parameters in this builder
+   * @param file file with incoming JSON.
+   * @return Map with data, the same as {@link TnJson#parse(Path)}.
+   */
+  public Map<String, Object> parse(Path file) {
+    return TnJson.parse(file, new JsonParser(this));
+  }
+
+  /**
+   * Parsing newline-delimited JSON from the Reader by parameters in this builder
+   * @param reader incoming NDJSON, will not be closed.
+   * @return stream of records, the same as {@link TnJson#parseLines(Reader)}.
+   */
+  public Stream<Map<String, Object>> parseLines(Reader reader) {
+    return JsonLines.parse(reader, this);
+  }
+
+  /**
+   * Parsing UTF-8 encoded file with newline-delimited JSON by parameters in this builder
+   * @param file file with incoming NDJSON.
+   * @return stream of records, the same as {@link TnJson#parseLines(Path)}, the stream must be closed.
+   */
+  public Stream<Map<String, Object>> parseLines(Path file) {
+    return JsonLines.parse(file, this);
+  }
+
+  /**
+   * Parsing elements of the root array from the Reader one by one by parameters in this builder.<br>
+   * Settings paths() and parallel() are not used.
+   * @param reader incoming JSON, will not be closed.
+   * @return stream of elements, the same as {@link TnJson#streamElements(Reader)}.
+   * @throws IllegalStateException if strict() is set
+   */
+  public Stream<Object> streamElements(Reader reader) {
+    checkNotStrict("streamElements()");
+    return JsonElements.stream(new ReaderSource(reader), this);
+  }
+
+  /**
+   * Parsing JSON-string with passing data to the listener by events, by parameters in this builder.<br>
+   * Setting maxDepth() limits nesting of objects and arrays, other settings are used only for collections from the listener.
+   * @param data incoming JSON-string.
+   * @param listener callback listener, it is used instead of listener() of this builder.
+   * @throws IllegalStateException if strict() is set
+   * @see TnJson#walk(String, IJsonListener)
+   */
+  public void walk(String data, IJsonListener listener) {
+    checkNotStrict("walk()");
+    TnJson.walk(new CharSequenceSource(data), new JsonParser(this), listener);
+  }
+
+  /**
+   * Parsing JSON from the Reader with passing data to the listener by events, by parameters in this builder.
+   * @param reader incoming JSON, will not be closed.
+   * @param listener callback listener, it is used instead of listener() of this builder.
+   * @see #walk(String, IJsonListener)
+   * @throws IllegalStateException if strict() is set
+   * @see TnJson#walk(Reader, IJsonListener)
+   */
+  public void walk(Reader reader, IJsonListener listener) {
+    checkNotStrict("walk()");
+    TnJson.walk(new ReaderSource(reader), new JsonParser(this), listener);
+  }
+
+  private Map<String, Object> parse(JsonSource source) {
+    return TnJson.parse(source, new JsonParser(this));
+  }
+
+  /**
+   * Check settings for parsing, which doesn't check standard json
+   * @param parsing name of parsing for the message
+   */
+  void checkNotStrict(String parsing) {
+    if (isStrict) {
+      throw new IllegalStateException("Setting strict() can't be used with " + parsing + ".");
+    }
+  }
+
+}
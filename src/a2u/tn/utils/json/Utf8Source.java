@@ -0,0 +1,288 @@
+package a2u.tn.utils.json;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Source with UTF-8 encoded data in a ByteBuffer.<br>
+ * Structure of json is ASCII, therefore it is scanned directly on bytes, and only the text of strings and keys is decoded.
+ * Positions in this source are positions of bytes.<br>
+ * For a multibyte character charAt() returns the same decoded character for every byte of it.
+ */
+class Utf8Source extends JsonSource {
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+  private static final long HIGH = 0x8080808080808080L;
+
+  private static final long SPACES    = ' '  * ONES;
+  private static final long TABS      = '\t' * ONES;
+  private static final long LFS       = '\n' * ONES;
+  private static final long CRS       = '\r' * ONES;
+  private static final long BACKSLASH = '\\' * ONES;
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+
+  private ByteBuffer buf;    // current window of the data, little-endian
+  private long bufStart;     // absolute position of the first byte in the window
+  private int bufLength;     // count of bytes in the window
+  private int safeLength;    // count of bytes in the window without the last incomplete character
+
+
+  Utf8Source(ByteBuffer data) {
+    setWindow(data, 0, true);
+  }
+
+  /**
+   * Constructor for sources which set window by itself
+   */
+  Utf8Source() {
+  }
+
+
+  /**
+   * Set new window of the data.
+   * @param window bytes of window from position to limit
+   * @param start absolute position of the window
+   * @param isLast true if the window contains end of the data
+   */
+  final void setWindow(ByteBuffer window, long start, boolean isLast) {
+    buf = window.slice().order(ByteOrder.LITTLE_ENDIAN);
+    bufStart = start;
+    bufLength = buf.remaining();
+    safeLength = bufLength;
+    if (!isLast) {
+      // don't split a multibyte character at the end of the window
+      int i = bufLength;
+      while (i > 0 && bufLength - i < 3 && (buf.get(i - 1) & 0xC0) == 0x80) {
+        i--;
+      }
+      if (i > 0 && (buf.get(i - 1) & 0xC0) == 0xC0) {
+        i--;
+      }
+      safeLength = i;
+    }
+  }
+
+  /**
+   * Move window to the position.
+   * @param index absolute position, which must be inside of a new window
+   * @return false if position after the end of data
+   */
+  boolean fill(long index) {
+    return false;
+  }
+
+
+  @Override
+  final boolean has(long index) {
+    long rel = index - bufStart;
+    return (rel >= 0 && rel < bufLength) || fill(index);
+  }
+
+  @Override
+  final char charAt(long index) {
+    long rel = index - bufStart;
+    if (rel < 0 || rel >= bufLength) {
+      if (!fill(index)) {
+        return END;
+      }
+      rel = index - bufStart;
+    }
+    byte b = buf.get((int) rel);
+    if (b >= 0) {
+      return (char) b;
+    }
+    return decodeAt((int) rel);
+  }
+
+  @Override
+  final int width(long index) {
+    int rel = lead(index);
+    return rel < 0 ? 1 : sequenceLength(buf.get(rel));
+  }
+
+  @Override
+  final int codePointAt(long index) {
+    int rel = lead(index);
+    return rel < 0 ? charAt(index) : decode(rel, sequenceLength(buf.get(rel)));
+  }
+
+  @Override
+  final long readyEnd(long from) {
+    if (from - bufStart >= safeLength) {
+      fill(from);
+    }
+    return bufStart + safeLength;
+  }
+
+  @Override
+  final long skipSpaces(long from) {
+    if (!has(from)) {
+      return from;
+    }
+    int i = (int) (from - bufStart);
+    while (i + 8 <= bufLength) {
+      long w = buf.getLong(i);
+      long other = ~(match(w, SPACES) | match(w, TABS) | match(w, LFS) | match(w, CRS)) & HIGH;
+      if (other != 0) {
+        return bufStart + i + (Long.numberOfTrailingZeros(other) >>> 3);
+      }
+      i += 8;
+    }
+    while (i < bufLength) {
+      byte b = buf.get(i);
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      i++;
+    }
+    return bufStart + i;
+  }
+
+  @Override
+  final long scanString(long from, char terminator) {
+    long end = readyEnd(from);
+    if (from >= end) {
+      return from;
+    }
+    int i = (int) (from - bufStart);
+    int last = (int) (end - bufStart);
+    long quotes = (terminator & 0xFF) * ONES;
+    while (i + 8 <= last) {
+      long w = buf.getLong(i);
+      long found = match(w, quotes) | match(w, BACKSLASH);
+      if (found != 0) {
+        return bufStart + i + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+      i += 8;
+    }
+    while (i < last) {
+      byte b = buf.get(i);
+      if (b == terminator || b == '\\') {
+        break;
+      }
+      i++;
+    }
+    return bufStart + i;
+  }
+
+  @Override
+  final void append(StringBuilder b, long start, long end) {
+    int i = (int) (start - bufStart);
+    int last = (int) (end - bufStart);
+    while (i < last) {
+      int c = buf.get(i);
+      if (c >= 0) {
+        b.append((char) c);
+        i++;
+        continue;
+      }
+
+      int len = sequenceLength(c);
+      if (len == 0 || i + len > last) {
+        b.append(REPLACEMENT);
+        i++;
+        continue;
+      }
+      int cp = decode(i, len);
+      if (cp < 0) {
+        b.append(REPLACEMENT);
+        i++;
+        continue;
+      }
+      b.appendCodePoint(cp);
+      i += len;
+    }
+  }
+
+  @Override
+  CharSequence view(long start, long end) {
+    return new StringView(buf, (int) (start - bufStart), (int) (end - bufStart));
+  }
+
+  @Override
+  JsonSource share() {
+    return this; // sources with all data in one window are not changed while reading
+  }
+
+
+  /**
+   * Position of the valid multibyte character in the window, which begins in the position
+   * @return relative position, or -1 if there is no such character
+   */
+  private int lead(long index) {
+    if (readyEnd(index) <= index) {
+      return -1;
+    }
+    int rel = (int) (index - bufStart);
+    int len = sequenceLength(buf.get(rel));
+    if (len == 0 || rel + len > bufLength || decode(rel, len) < 0) {
+      return -1;
+    }
+    return rel;
+  }
+
+  /**
+   * Decode multibyte character, which contains byte in the position.
+   */
+  private char decodeAt(int pos) {
+    int i = pos;
+    while (i > 0 && pos - i < 3 && (buf.get(i) & 0xC0) == 0x80) {
+      i--;
+    }
+    int len = sequenceLength(buf.get(i));
+    if (len == 0 || i + len <= pos || i + len > bufLength) {
+      return REPLACEMENT;
+    }
+    int cp = decode(i, len);
+    if (cp < 0) {
+      return REPLACEMENT;
+    }
+    return cp < Character.MIN_SUPPLEMENTARY_CODE_POINT ? (char) cp : Character.highSurrogate(cp);
+  }
+
+  /**
+   * Length of UTF-8 sequence by its first byte.
+   * @return length or 0 if this is not a first byte
+   */
+  private static int sequenceLength(int lead) {
+    if ((lead & 0xE0) == 0xC0) {
+      return 2;
+    }
+    if ((lead & 0xF0) == 0xE0) {
+      return 3;
+    }
+    if ((lead & 0xF8) == 0xF0) {
+      return 4;
+    }
+    return 0;
+  }
+
+  /**
+   * Decode code point from the multibyte sequence.
+   * @return code point or -1 if sequence is malformed
+   */
+  private int decode(int i, int len) {
+    int cp = buf.get(i) & (0x7F >> len);
+    for (int k = 1; k < len; k++) {
+      int next = buf.get(i + k);
+      if ((next & 0xC0) != 0x80) {
+        return -1;
+      }
+      cp = (cp << 6) | (next & 0x3F);
+    }
+    return cp;
+  }
+
+  /**
+   * SWAR comparison of eight bytes at once.
+   * @return word with high bit set in every byte of w which is equal to the byte of pattern
+   */
+  private static long match(long w, long pattern) {
+    long x = w ^ pattern;
+    return ~(((x & LOW7) + LOW7) | x) & HIGH;
+  }
+
+}
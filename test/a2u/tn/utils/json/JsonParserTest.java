@@ -1,13 +1,29 @@
 package a2u.tn.utils.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 
 public class JsonParserTest {
@@ -398,7 +414,7 @@ public class JsonParserTest {
 
     json = "{obj1:{num1:123, obj2:{list:[456, 789]}}}";
     result = TnJson.parse(json, null);
-    assertEquals("java.util.LinkedHashMap", MapNavigator.fromPath(result, "obj1.obj2").getClass().getName());
+    assertEquals("a2u.tn.utils.json.CompactMap", MapNavigator.fromPath(result, "obj1.obj2").getClass().getName());
     assertEquals("java.util.ArrayList", MapNavigator.fromPath(result, "obj1.obj2.list").getClass().getName());
 
     result = TnJson.parse(json,
@@ -413,7 +429,7 @@ public class JsonParserTest {
                                  return null;
                                }
                              });
-    assertEquals("java.util.LinkedHashMap", MapNavigator.fromPath(result, "obj1.obj2").getClass().getName());
+    assertEquals("a2u.tn.utils.json.CompactMap", MapNavigator.fromPath(result, "obj1.obj2").getClass().getName());
     assertEquals("java.util.ArrayList", MapNavigator.fromPath(result, "obj1.obj2.list").getClass().getName());
 
     result = TnJson.parse(json,
@@ -442,4 +458,1105 @@ public class JsonParserTest {
 
 
   }
-}
\ No newline at end of file
+
+
+
+  @org.junit.Test
+  public void testParseReader() throws Exception {
+    String json = "{\n" +
+                  "  // comments\n" +
+                  "  unquoted: 'and you can quote me on that',\n" +
+                  "  singleQuotes: 'I can use \"double quotes\" here',\n" +
+                  "  lineBreaks: \"Look, Mom! \\\n" +
+                  "No \\\\n's!\",\n" +
+                  "  hexadecimal: 0xdecaf,\n" +
+                  "  /* long comment " + repeat("*", 300) + " */\n" +
+                  "  leadingDecimalPoint: .8675309, andTrailing: 8675309.,\n" +
+                  "  positiveSign: +1,\n" +
+                  "  longString: '" + repeat("\\u0040abc", 200) + "',\n" +
+                  "  trailingComma: 'in objects', andIn: ['arrays',],\n" +
+                  "  \"backwardsCompatible\": \"with JSON\",\n" +
+                  "}";
+    Map<String, Object> etalon = TnJson.parse(json);
+
+    assertEquals(etalon, TnJson.parse(new StringReader(json)));
+    assertEquals(etalon, TnJson.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+
+    //window smaller than tokens
+    for (int size = 64; size < 128; size += 7) {
+      Map<String, Object> result = new JsonParser().doParse(new ReaderSource(new StringReader(json), size));
+      assertEquals(etalon, result);
+    }
+    assertEquals(repeat("@abc", 200), etalon.get("longString"));
+  }
+
+  @org.junit.Test
+  public void testUnfinished() throws Exception {
+    //not finished json gives the same result with and without spaces at the end
+    Map<String, Object> expected = new LinkedHashMap<>();
+    assertEquals(expected, TnJson.parse("{"));
+    assertEquals(expected, TnJson.parse("{ "));
+    assertEquals(expected, TnJson.parse(new StringReader("{ \n")));
+
+    expected.put("list", Arrays.asList(1));
+    assertEquals(expected, TnJson.parse("[1,"));
+    assertEquals(expected, TnJson.parse("[1, "));
+    assertEquals(expected, TnJson.parse("[1 "));
+    assertEquals(expected, TnJson.parse(new StringReader("[1, \t")));
+
+    expected.clear();
+    expected.put("a", 1);
+    assertEquals(expected, TnJson.parse("{a: 1,"));
+    assertEquals(expected, TnJson.parse("{a: 1, "));
+  }
+
+  @org.junit.Test
+  public void testParseUtf8() throws Exception {
+    String json = "{\n" +
+                  "  \"ключ\": \"значение\",\n" +
+                  "  имя\u00A0: 'Grüße 😀 日本',\n" +
+                  "  'quote\\'s': \"\\\"ä\\\"\",\n" +
+                  "  list: [1, 'ё', 2.5, true, null],\n" +
+                  "  \u3000 long: '" + repeat("ab\\\"cdéf\\\\", 40) + "',\n" +
+                  "}";
+    Map<String, Object> etalon = TnJson.parse(json);
+    assertEquals("значение", etalon.get("ключ"));
+    assertEquals("Grüße 😀 日本", etalon.get("имя"));
+
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    assertEquals(etalon, TnJson.parse(bytes, 0, bytes.length));
+    assertEquals(etalon, TnJson.parse(ByteBuffer.wrap(bytes)));
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 10);
+    direct.put(new byte[5]).put(bytes).put(new byte[5]);
+    direct.position(5).limit(5 + bytes.length);
+    assertEquals(etalon, TnJson.parse(direct));
+    assertEquals(5, direct.position());
+
+    //escaped multibyte characters
+    for (String str : new String[] {"{k:\"a\\é b\"}", "{\"a\\é\":1}", "{k:'x\\€y'}", "{\\ё\\😀: '\\😀\\日'}"}) {
+      byte[] b = str.getBytes(StandardCharsets.UTF_8);
+      assertEquals(TnJson.parse(str), TnJson.parse(b, 0, b.length));
+    }
+    assertEquals("a\u00e9 b", TnJson.parse(ByteBuffer.wrap("{k:\"a\\é b\"}".getBytes(StandardCharsets.UTF_8))).get("k"));
+
+    //every alignment of quotes relative to 8-bytes words
+    for (int shift = 0; shift < 16; shift++) {
+      String str = repeat(" ", shift) + "{s:'" + repeat("x", shift) + "\\'y" + repeat("z", 15 - shift) + "'}";
+      byte[] b = str.getBytes(StandardCharsets.UTF_8);
+      assertEquals(TnJson.parse(str), TnJson.parse(b, 0, b.length));
+    }
+  }
+
+  @org.junit.Test
+  public void testParseFile() throws Exception {
+    String json = "{\n" +
+                  "  \"ключ\": \"значение\",\n" +
+                  "  имя: 'Grüße 😀 日本',\n" +
+                  "  list: [1, 'ё', 2.5, true, null, {'вложенный': '" + repeat("ж\\\"", 50) + "'}],\n" +
+                  "  /* комментарий " + repeat("ы", 100) + " */\n" +
+                  "  long: '" + repeat("abcdéf😀", 40) + "',\n" +
+                  "}";
+    Map<String, Object> etalon = TnJson.parse(json);
+
+    Path file = Files.createTempFile("tnjson", ".json");
+    try {
+      Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+      assertEquals(etalon, TnJson.parse(file));
+
+      //small windows, which split multibyte characters
+      try (FileChannel channel = FileChannel.open(file)) {
+        for (int size = 64; size < 96; size++) {
+          assertEquals(etalon, new JsonParser().doParse(new MappedFileSource(channel, size)));
+        }
+      }
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  @org.junit.Test
+  public void testWalk() throws Exception {
+    String json = "// comment\n" +
+                  "{num: 1, str: 'str', obj: {list: [true, null, [], {}], num2: 2.5}, last: 0x10}";
+
+    StringBuilder events = new StringBuilder();
+    IJsonListener listener = new IJsonListener() {
+      @Override
+      public void startObject(String path) {
+        events.append("{").append(path).append(" ");
+      }
+      @Override
+      public void key(String key) {
+        events.append(key).append(":");
+      }
+      @Override
+      public void value(Object value) {
+        events.append(value).append(" ");
+      }
+      @Override
+      public void endObject() {
+        events.append("} ");
+      }
+      @Override
+      public void startArray(String path) {
+        events.append("[").append(path).append(" ");
+      }
+      @Override
+      public void endArray() {
+        events.append("] ");
+      }
+    };
+
+    TnJson.walk(json, listener);
+    assertEquals("{root num:1 str:str obj:{root.obj list:[root.obj.list true null [root.obj.list ] {root.obj.list } ] num2:2.5 } last:16 } ",
+                 events.toString());
+
+    events.setLength(0);
+    TnJson.walk(new StringReader(json), listener);
+    assertEquals("{root num:1 str:str obj:{root.obj list:[root.obj.list true null [root.obj.list ] {root.obj.list } ] num2:2.5 } last:16 } ",
+                 events.toString());
+
+    events.setLength(0);
+    TnJson.walk("[1, [2]]", listener);
+    assertEquals("[root 1 [root 2 ] ] ", events.toString());
+
+    //part of json as collection
+    List<Object> values = new ArrayList<>();
+    TnJson.walk(json, new IJsonListener() {
+      @Override
+      public Map<String, Object> forObject(String path) {
+        return path.equals("root.obj") ? new HashMap<>() : null;
+      }
+      @Override
+      public void startObject(String path) {
+      }
+      @Override
+      public void key(String key) {
+      }
+      @Override
+      public void value(Object value) {
+        values.add(value);
+      }
+      @Override
+      public void endObject() {
+      }
+      @Override
+      public void startArray(String path) {
+      }
+      @Override
+      public void endArray() {
+      }
+    });
+    assertEquals(4, values.size());
+    assertEquals(HashMap.class, values.get(2).getClass());
+    assertEquals(2.5, ((Map) values.get(2)).get("num2"));
+    assertEquals(4, ((List) ((Map) values.get(2)).get("list")).size());
+  }
+
+  @org.junit.Test
+  public void testErrorPath() throws Exception {
+    assertEquals("root.obj.b", errorPath("{obj: {a: 1, b: 2 c: 3}}"));
+    assertEquals("root.obj.list.c", errorPath("{obj: {list: [{c: abc}]}}"));
+    assertEquals("root.obj", errorPath("{obj: {a: 1, b'x': 2}}"));
+    assertEquals("root.obj2.a", errorPath("{obj: {a: 1}, obj2: {a 2}}"));
+
+    //position at the end of data is the length of data
+    assertEquals(3, errorPosition("{a "));
+    assertEquals(8, errorPosition("{a // c "));
+    assertEquals(8, errorPosition("{a: 1 \n\n"));
+  }
+
+  @org.junit.Test
+  @SuppressWarnings("unchecked")
+  public void testKeyCache() throws Exception {
+    String json = "{list: [{id: 1, 'name': 'a'}, {id: 2, \"name\": 'b'}, {\\u0069d: 3, ' name ': 'c'}]}";
+    KeyCache cache = new KeyCache();
+    TnJsonParserBuilder parser = TnJson.parser().keyCache(cache);
+
+    Map<String, Object> result = parser.parse(json);
+    assertEquals(TnJson.parse(json), result);
+
+    List<Map<String, Object>> list = (List<Map<String, Object>>) result.get("list");
+    String id = list.get(0).keySet().iterator().next();
+    assertEquals("id", id);
+    assertSame(id, list.get(1).keySet().iterator().next());
+
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    Map<String, Object> result2 = parser.parse(bytes, 0, bytes.length);
+    assertSame(id, ((List<Map<String, Object>>) result2.get("list")).get(0).keySet().iterator().next());
+
+    //the same key with spaces and from UTF-8 data
+    String key = parser.parse("{имя: 1}").keySet().iterator().next();
+    assertSame(key, parser.parse("{' имя ': 1}").keySet().iterator().next());
+    bytes = "{\"имя\": 1}".getBytes(StandardCharsets.UTF_8);
+    assertSame(key, parser.parse(bytes, 0, bytes.length).keySet().iterator().next());
+
+    //shared between threads
+    List<Thread> threads = new ArrayList<>();
+    List<Object> errors = Collections.synchronizedList(new ArrayList<>());
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          String str = "{k" + (i % 50) + ": 1, key: " + i + "}";
+          Map<String, Object> map = parser.parse(str);
+          if (!map.containsKey("k" + (i % 50)) || !map.get("key").equals(i)) {
+            errors.add(str);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, errors.size());
+  }
+
+  @org.junit.Test
+  public void testLiterals() throws Exception {
+    Map<String, Object> result = TnJson.parse("{a: NULL, b: True, c: FALSE, d: -Infinity, e: nan, f: 0xFFFFFFF, g: -0xFF, n: 0x7fffffff,"
+                                              + " h: 999999999, i: 1000000000, j: 922337203685477580, k: 9223372036854775807, l: 010, m: -0}");
+    assertEquals(null, result.get("a"));
+    assertEquals(Boolean.TRUE, result.get("b"));
+    assertEquals(Boolean.FALSE, result.get("c"));
+    assertEquals(Double.NEGATIVE_INFINITY, result.get("d"));
+    assertEquals(Double.NaN, result.get("e"));
+    assertEquals(0xFFFFFFF, result.get("f"));
+    assertEquals(0x7fffffffL, result.get("n"));
+    assertEquals(-255, result.get("g"));
+    assertEquals(999999999, result.get("h"));
+    assertEquals(1000000000L, result.get("i"));
+    assertEquals(922337203685477580L, result.get("j"));
+    assertEquals(new BigInteger("9223372036854775807"), result.get("k"));
+    assertEquals(8, result.get("l"));
+    assertEquals(0, result.get("m"));
+
+    try {
+      TnJson.parse("{a: 12abc}");
+      throw new AssertionError("No exception for invalid literal");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.a", ex.getPath());
+    }
+  }
+
+  @org.junit.Test
+  public void testDoubles() throws Exception {
+    String[] numbers = {"0.1", "-0.0", "1.5e3", "1E-5", ".5", "-.25", "5.", "1e23", "9007199254740993.0", "0.000000000000000000000000000001234",
+                        "2.2250738585072011e-308", "2.4703282292062327e-324", "2.4703282292062328e-324", "4.9e-324",
+                        "1.7976931348623157e308", "1.7976931348623159e308", "1e-400", "123456789012345678901234.5",
+                        "7.2057594037927933e16", "9999999999999999999e-5", "010.5", "1.00000000000000011102230246251565404236316680908203125"};
+    for (String number : numbers) {
+      Object value = TnJson.parse("{v: " + number + "}").get("v");
+      assertEquals(number, Double.doubleToRawLongBits(Double.parseDouble(number)), Double.doubleToRawLongBits((Double) value));
+    }
+
+    java.util.Random random = new java.util.Random(1);
+    for (int i = 0; i < 10000; i++) {
+      String number = Double.toString(Double.longBitsToDouble(random.nextLong() & 0x7FEFFFFFFFFFFFFFL));
+      Object value = TnJson.parse("[" + number + "]").get("list");
+      assertEquals(number, Double.valueOf(number), ((List<?>) value).get(0));
+    }
+  }
+
+  @org.junit.Test
+  public void testLazyStrings() throws Exception {
+    String json = "{a: 'text', b: ' текст ', c: 'tab\\tted', d: '', list: ['x', \"y\"]}";
+    TnJsonParserBuilder parser = TnJson.parser().lazyStrings();
+
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    List<Map<String, Object>> results = new ArrayList<>();
+    results.add(parser.parse(json));
+    results.add(parser.parse(bytes, 0, bytes.length));
+    results.add(parser.parse(ByteBuffer.wrap(bytes)));
+
+    for (Map<String, Object> result : results) {
+      assertSame(StringView.class, result.get("a").getClass());
+      assertEquals("text", result.get("a").toString());
+      assertEquals(4, ((CharSequence) result.get("a")).length());
+      assertEquals("ex", ((CharSequence) result.get("a")).subSequence(1, 3).toString());
+      assertEquals("текст", result.get("b").toString());
+      assertEquals("tab\tted", result.get("c"));
+      assertEquals("", result.get("d").toString());
+      assertEquals("y", ((List) result.get("list")).get(1).toString());
+      assertEquals(results.get(0).get("b"), result.get("b"));
+      assertEquals("текст".hashCode(), result.get("b").hashCode());
+    }
+
+    //data can be changed, so it is copied
+    Map<String, Object> result = parser.parse(new StringReader(json));
+    assertEquals("text", result.get("a"));
+  }
+
+  @org.junit.Test
+  @SuppressWarnings("unchecked")
+  public void testParseLazy() throws Exception {
+    String json = "{num: 1, obj: {a: 'x', list: [1, {b: '}'}, [2, 3]], c: /* } */ 4}, list: [{d: 5}, 'e'], bad: {f 6}}";
+
+    Map<String, Object> result = TnJson.parseLazy(json);
+    assertEquals(1, result.get("num"));
+    assertSame(LazyMap.class, result.get("obj").getClass());
+    assertSame(LazyList.class, result.get("list").getClass());
+
+    Map<String, Object> obj = (Map<String, Object>) result.get("obj");
+    assertEquals("x", obj.get("a"));
+    assertEquals(4, obj.get("c"));
+    assertSame(obj.get("list"), obj.get("list"));
+    List<Object> list = (List<Object>) obj.get("list");
+    assertEquals(3, list.size());
+    assertEquals("}", ((Map) list.get(1)).get("b"));
+    assertEquals(TnJson.parse("{l: [2, 3]}").get("l"), list.get(2));
+
+    try {
+      ((Map) result.get("bad")).get("f");
+      throw new AssertionError("No exception for invalid nested object");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.bad.f", ex.getPath());
+    }
+
+    result.remove("bad");
+    Map<String, Object> expected = TnJson.parse(json.replace(", bad: {f 6}", ""));
+    assertEquals(expected, result);
+    assertEquals(result, expected);
+
+    byte[] bytes = json.replace(", bad: {f 6}", "").getBytes(StandardCharsets.UTF_8);
+    assertEquals(expected, TnJson.parseLazy(bytes, 0, bytes.length));
+    assertEquals(TnJson.toJson(expected), TnJson.toJson(TnJson.parseLazy(bytes, 0, bytes.length)));
+  }
+
+  @org.junit.Test
+  public void testParsePaths() throws Exception {
+    String json = "{id: 7, name: 'n', skip: {deep: [1, 2, {x: 'y'}]}, 'obj': {a: 1, ' b ': 2, c: {d: 3}},"
+                  + " list: [{id: 1, v: 'a'}, {id: 2, v: 'b'}, 5, {id: 3, v: 'c'}], other: [10, 20, 30, 40]}";
+
+    Map<String, Object> result = TnJson.parsePaths(json, new HashSet<>(java.util.Arrays.asList("id", "obj.b", "obj.c", "list.id", "list.1.v", "other.2", "missing.key")));
+    assertEquals(TnJson.parse("{id: 7, obj: {b: 2, c: {d: 3}}, list: [{id: 1}, {id: 2, v: 'b'}, null, {id: 3}], other: [null, null, 30]}"), result);
+    assertEquals(30, MapNavigator.fromPath(result, "other.2"));
+    assertEquals("b", MapNavigator.fromPath(result, "list.1.v"));
+
+    assertEquals(TnJson.parse(json), TnJson.parsePaths(json, Collections.singleton("root")));
+    assertEquals(TnJson.parse("{skip: {deep: [null, null, {x: 'y'}]}}"), TnJson.parsePaths(json, Collections.singleton("root.skip.deep.x")));
+
+    //array as root
+    Map<String, Object> listResult = TnJson.parser().paths(Collections.singleton("list.1")).parse(new StringReader("[{a: 1}, {b: 2}, {c: 3}]"));
+    assertEquals(TnJson.parse("[null, {b: 2}]"), listResult);
+    assertEquals(0, TnJson.parsePaths("[1, 2]", Collections.singleton("id")).size());
+
+    //skipped parts are not parsed
+    assertEquals(1, TnJson.parsePaths("{bad: [1 2 3 0x], good: 1}", Collections.singleton("good")).get("good"));
+  }
+
+  @org.junit.Test
+  public void testCompiledPath() throws Exception {
+    Map<String, Object> result = TnJson.parse("{obj: {list: [{id: 1}, {id: 2}], num: 3}}");
+
+    CompiledPath path = MapNavigator.compile("obj.list.1.id");
+    assertEquals("obj.list.1.id", path.getPath());
+    assertEquals(2, path.fromMap(result));
+    assertEquals(2, MapNavigator.fromPath(result, "obj.list.1.id"));
+    assertSame(MapNavigator.compile("obj.list.1.id"), MapNavigator.compile("obj.list.1.id"));
+    assertEquals(null, MapNavigator.compile("obj.none.id").fromMap(result));
+
+    try {
+      MapNavigator.fromPath(result, "obj.num.x");
+      throw new AssertionError("No exception for incorrect path");
+    }
+    catch (RuntimeException ex) {
+      assertEquals("Incorrect path: node=.obj.num is not a Map or List.", ex.getMessage());
+    }
+    try {
+      MapNavigator.fromPath(result, "obj.list.id");
+      throw new AssertionError("No exception for incorrect index");
+    }
+    catch (NumberFormatException ex) {
+      System.out.println("Expected Exception: " + ex.getMessage() + " - Ok.");
+    }
+  }
+
+  @org.junit.Test
+  public void testQuery() throws Exception {
+    Map<String, Object> result = TnJson.parse("{store: {name: 'shop', items: ["
+                                              + "{id: 1, price: 10, tag: 'a', count: 0},"
+                                              + "{id: 2, price: 2.5, tag: 'b', count: 3},"
+                                              + "{id: 3, price: 100, tag: 'a', count: 1, sub: {id: 4}}],"
+                                              + " 'odd.key': {id: 5}}}");
+
+    assertEquals(list(10, 2.5, 100), MapNavigator.select(result, "store.items.*.price"));
+    assertEquals(list(10, 2.5, 100), MapNavigator.select(result, "$.store.items[*].price"));
+    assertEquals(list(1, 2, 3, 4, 5), MapNavigator.select(result, "..id"));
+    assertEquals(list(4), MapNavigator.select(result, "store.items..sub.id"));
+    assertEquals(list(2), MapNavigator.select(result, "store.items[1].id"));
+    assertEquals(list(2), MapNavigator.select(result, "store.items.1.id"));
+    assertEquals(list(3), MapNavigator.select(result, "store.items[-1].id"));
+    assertEquals(list(1, 2), MapNavigator.select(result, "store.items[:2].id"));
+    assertEquals(list(1, 3), MapNavigator.select(result, "store.items[0::2].id"));
+    assertEquals(list(1), MapNavigator.select(result, "store.items[0:10:2147483647].id"));
+    assertEquals(list(5), MapNavigator.select(result, "store['odd.key'].id"));
+    assertEquals(list(2, 3), MapNavigator.select(result, "store.items[?(@.count > 0)].id"));
+    assertEquals(list(1, 3), MapNavigator.select(result, "store.items[?(@.tag == 'a')].id"));
+    assertEquals(list(2), MapNavigator.select(result, "store.items[?(@.price <= 2.5)].id"));
+    assertEquals(list(3), MapNavigator.select(result, "store.items[?(@.sub)].id"));
+    assertEquals(list(4), MapNavigator.select(result, "store.items[?(@.sub.id != 5)].sub.id"));
+    assertEquals(list(), MapNavigator.select(result, "store.none.*"));
+
+    //deep json without recursion
+    Map<String, Object> deep = TnJson.parse(repeat("{a: [1, ", 100000) + repeat("]}", 100000));
+    assertEquals(100000, MapNavigator.select(deep, "..a").size());
+
+    CompiledQuery query = MapNavigator.compileQuery("store.name");
+    assertSame(query, MapNavigator.compileQuery("store.name"));
+    assertEquals("shop", query.selectFirst(result));
+
+    for (String invalid : new String[] {"store.[", "store.items[1", "store.items[?(@.a ~ 1)]", "store.items[a:b]", "a.."}) {
+      try {
+        MapNavigator.compileQuery(invalid);
+        throw new AssertionError("No exception for " + invalid);
+      }
+      catch (IllegalArgumentException ex) {
+        System.out.println("Expected Exception: " + ex.getMessage() + " - Ok.");
+      }
+    }
+  }
+
+  private static List<Object> list(Object... values) {
+    return java.util.Arrays.asList(values);
+  }
+
+  @org.junit.Test
+  public void testParseLines() throws Exception {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < 50000; i++) {
+      b.append("{id: ").append(i).append(", name: 'record \u2116").append(i).append("', list: [1, 2, {a: 3}]}");
+      b.append(i % 100 == 0 ? "\r\n\n" : "\n");
+    }
+    Path file = Files.createTempFile("tnjson", ".ndjson");
+    try {
+      Files.write(file, b.toString().getBytes(StandardCharsets.UTF_8));
+
+      List<Map<String, Object>> expected = TnJson.parseLines(new StringReader(b.toString())).collect(java.util.stream.Collectors.toList());
+      assertEquals(50000, expected.size());
+      assertEquals(49999, expected.get(49999).get("id"));
+      assertEquals("record \u21161", expected.get(1).get("name"));
+
+      assertEquals(expected, TnJson.parseLines(new StringReader(b.toString())).parallel().collect(java.util.stream.Collectors.toList()));
+      try (java.util.stream.Stream<Map<String, Object>> records = TnJson.parseLines(file)) {
+        assertEquals(expected, records.parallel().collect(java.util.stream.Collectors.toList()));
+      }
+      try (java.util.stream.Stream<Map<String, Object>> records = TnJson.parser().paths(Collections.singleton("id")).parseLines(file)) {
+        assertEquals(1249975000L, records.parallel().unordered().mapToLong(record -> (Integer) record.get("id")).sum());
+      }
+      //lazy strings are not views over the mapped file
+      try (java.util.stream.Stream<Map<String, Object>> records = TnJson.parser().lazyStrings().parseLines(file)) {
+        assertEquals(String.class, records.findFirst().get().get("name").getClass());
+      }
+
+      Files.write(file, "{a: 1}\n{a: 2}\n{a 3}\n".getBytes(StandardCharsets.UTF_8));
+      try (java.util.stream.Stream<Map<String, Object>> records = TnJson.parseLines(file)) {
+        records.count();
+        throw new AssertionError("No exception for invalid record");
+      }
+      catch (ParseException ex) {
+        assertEquals(17, ex.getLongPosition());
+      }
+      try {
+        TnJson.parseLines(new StringReader("{a: 1}\n\n{a: 2}\n{a 3}\n")).parallel().count();
+        throw new AssertionError("No exception for invalid record");
+      }
+      catch (ParseException ex) {
+        assertEquals(3, ex.getLongPosition());
+        assertTrue(ex.getMessage(), ex.getMessage().endsWith(" Record at line 4."));
+      }
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  @org.junit.Test
+  public void testParseParallel() throws Exception {
+    StringBuilder b = new StringBuilder("// big array\n[");
+    for (int i = 0; i < 40000; i++) {
+      b.append("{id: ").append(i).append(", text: '\u0442\u0435\u043a\u0441\u0442 ]}, ").append(i).append("', list: [1, [2], {a: 3}], /* , */ n: null},\n");
+      b.append(i % 3 == 0 ? "'str'," : "1.5,");
+    }
+    b.append("]");
+    String json = b.toString();
+    Map<String, Object> expected = TnJson.parse(json);
+    assertEquals(80000, ((List) expected.get("list")).size());
+
+    TnJsonParserBuilder parser = TnJson.parser().parallel();
+    assertEquals(expected, parser.parse(json));
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    assertEquals(expected, parser.parse(bytes, 0, bytes.length));
+    assertEquals(expected, parser.parse(new StringReader(json)));
+
+    Path file = Files.createTempFile("tnjson", ".json");
+    try {
+      Files.write(file, bytes);
+      assertEquals(expected, parser.parse(file));
+    }
+    finally {
+      Files.delete(file);
+    }
+
+    assertEquals(TnJson.parse("[]"), parser.parse("[]"));
+    assertEquals(TnJson.parse("{a: [1, 2]}"), parser.parse("{a: [1, 2]}"));
+
+    //array of numbers is the same NumberList as without parallel()
+    StringBuilder numbers = new StringBuilder("[");
+    for (int i = 0; i < 100000; i++) {
+      numbers.append(i).append(i % 2 == 0 ? ", " : ".5, ");
+    }
+    TnJsonParserBuilder numbersParser = TnJson.parser().numberLists();
+    Object list = numbersParser.parallel().parse(numbers + "]").get("list");
+    assertEquals(NumberList.class, list.getClass());
+    assertEquals(numbersParser.parse(numbers + "]"), numbersParser.parallel().parse(numbers + "]"));
+    list = numbersParser.parallel().parse(numbers + "'end']").get("list");
+    assertEquals(ArrayList.class, list.getClass());
+    assertEquals(100001, ((List) list).size());
+    try {
+      parser.parse(json.replace("id: 39999,", "id: 39999"));
+      throw new AssertionError("No exception for invalid json");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.id", ex.getPath());
+    }
+  }
+
+  @org.junit.Test
+  public void testReusableParser() {
+    String json = "{id: 1, text: 'text \\u0442\\u0435 \\x41', list: [1, 2.5, {key: \"value\"}]}";
+    Map<String, Object> expected = TnJson.parse(json);
+
+    TnJsonParser parser = TnJson.parser().build();
+    for (int i = 0; i < 3; i++) {
+      assertEquals(expected, parser.parse(json));
+    }
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    assertEquals(expected, parser.parse(bytes, 0, bytes.length));
+    assertEquals(expected, parser.parse(new StringReader(json)));
+
+    try {
+      parser.parse("{a: [1, 2}");
+      throw new AssertionError("No exception for invalid json");
+    }
+    catch (ParseException ex) {
+      // parser must be usable after error
+    }
+    assertEquals(expected, parser.parse(json));
+
+    StringBuilder big = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      big.append("long string ");
+    }
+    assertEquals(big.toString().trim(), parser.parse("{s: '" + big + "'}").get("s"));
+    parser.reset();
+    assertEquals(expected, parser.parse(json));
+
+    // buffers of the parser for static methods are not kept after a big json
+    JsonParser pooled = new JsonParser();
+    pooled.doParse("{s: '" + big + "'}");
+    assertTrue(pooled.trim());
+    assertFalse(pooled.trim());
+    assertEquals(expected, pooled.doParse(json));
+    assertFalse(pooled.trim());
+    assertEquals(big.toString().trim(), TnJson.parse("{s: '" + big + "'}").get("s"));
+    TnJson.releaseParser();
+    assertEquals(expected, TnJson.parse(json));
+
+    // parsing from listener uses other parser
+    Map<String, Object> nested = new LinkedHashMap<>();
+    Map<String, Object> result = TnJson.parse("{a: {b: 1}, c: [2]}", new IGetCollection() {
+      @Override
+      public Map<String, Object> forObject(String path) {
+        nested.put(path, TnJson.parse("{path: '" + path + "'}").get("path"));
+        return new LinkedHashMap<>();
+      }
+
+      @Override
+      public Collection forList(String path) {
+        return new ArrayList();
+      }
+    });
+    assertEquals(TnJson.parse("{a: {b: 1}, c: [2]}"), result);
+    assertEquals("root.a", nested.get("root.a"));
+    assertEquals(expected, TnJson.parse(json));
+
+    TnJsonParser[] self = new TnJsonParser[1];
+    self[0] = TnJson.parser().listener(new IGetCollection() {
+      @Override
+      public Map<String, Object> forObject(String path) {
+        if (path.equals("root.a")) {
+          self[0].parse("{}");
+        }
+        return new LinkedHashMap<>();
+      }
+
+      @Override
+      public Collection forList(String path) {
+        return new ArrayList();
+      }
+    }).build();
+    try {
+      self[0].parse("{a: {}}");
+      throw new AssertionError("No exception for nested use of parser");
+    }
+    catch (IllegalStateException ex) {
+      // expected
+    }
+    assertEquals(TnJson.parse("{b: 1}"), self[0].parse("{b: 1}"));
+  }
+
+  @org.junit.Test
+  public void testNumberLists() {
+    TnJsonParserBuilder parser = TnJson.parser().numberLists();
+    String json = "{ints: [1, -2, 3], longs: [5000000000, 1], doubles: [1.5, -0.0, NaN, 1e300], mixed: [1, 5000000000, 2.5, 0x10],"
+                + " empty: [], strings: [1, 'a'], nulls: [1.5, null], nested: [[1, 2], [3.5]], objects: [{a: [1]}], big: [1, 123456789012345678901]}";
+    Map<String, Object> expected = TnJson.parse(json);
+    Map<String, Object> result = parser.parse(json);
+    assertEquals(expected, result);
+    assertEquals(expected.toString(), result.toString());
+
+    assertEquals(NumberList.class, result.get("ints").getClass());
+    assertEquals(NumberList.class, result.get("longs").getClass());
+    assertEquals(NumberList.class, result.get("doubles").getClass());
+    assertEquals(NumberList.class, result.get("mixed").getClass());
+    assertEquals(NumberList.class, result.get("empty").getClass());
+    assertEquals(ArrayList.class, result.get("strings").getClass());
+    assertEquals(ArrayList.class, result.get("nulls").getClass());
+    assertEquals(ArrayList.class, result.get("nested").getClass());
+    assertEquals(NumberList.class, ((List) result.get("nested")).get(0).getClass());
+    assertEquals(ArrayList.class, result.get("big").getClass());
+
+    NumberList mixed = (NumberList) result.get("mixed");
+    assertEquals(Integer.valueOf(1), mixed.get(0));
+    assertEquals(Long.valueOf(5000000000L), mixed.get(1));
+    assertEquals(Double.valueOf(2.5), mixed.get(2));
+    assertEquals(Integer.valueOf(16), mixed.get(3));
+    assertEquals(2, mixed.getLong(2));
+    assertEquals("[1.0, 5.0E9, 2.5, 16.0]", Arrays.toString(mixed.toDoubleArray()));
+
+    NumberList ints = (NumberList) result.get("ints");
+    ints.add(1, 7L);
+    ints.set(0, 0.5);
+    ints.remove(3);
+    assertEquals(Arrays.asList(0.5, 7L, -2), ints);
+    try {
+      ints.add(new BigInteger("1"));
+      throw new AssertionError("No exception for BigInteger");
+    }
+    catch (IllegalArgumentException ex) {
+      // expected
+    }
+
+    NumberList numbers = new NumberList();
+    for (int i = 0; i < 1000; i++) {
+      numbers.add(i);
+    }
+    numbers.add(0, 1L << 40);
+    assertEquals(1001, numbers.size());
+    assertEquals(Long.valueOf(1L << 40), numbers.get(0));
+    assertEquals(Integer.valueOf(999), numbers.get(1000));
+    numbers.clear();
+    assertEquals(Collections.emptyList(), numbers);
+
+    Map<String, Object> root = parser.parse("[1, 2, 3]");
+    assertEquals(NumberList.class, root.get(TnJson.DEFAULT_LIST_KEY).getClass());
+    assertEquals(TnJson.parse("[1, 2, 3]"), root);
+
+    Map<String, Object> custom = parser.listener(new IGetCollection() {
+      @Override
+      public Map<String, Object> forObject(String path) {
+        return null;
+      }
+
+      @Override
+      public Collection forList(String path) {
+        return new HashSet();
+      }
+    }).parse("{a: [1, 2, 2]}");
+    assertEquals(HashSet.class, custom.get("a").getClass());
+  }
+
+  @org.junit.Test
+  public void testCompactMap() {
+    java.util.Random random = new java.util.Random(7);
+    Map<String, Object> expected = new LinkedHashMap<>();
+    CompactMap<String, Object> map = new CompactMap<>();
+    for (int i = 0; i < 20000; i++) {
+      String key = random.nextInt(10) == 0 ? null : "k" + random.nextInt(i < 10000 ? 40 : 5);
+      int op = random.nextInt(10);
+      if (op < 5) {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      }
+      else if (op < 8) {
+        assertEquals(expected.remove(key), map.remove(key));
+      }
+      else if (op < 9) {
+        assertEquals(expected.get(key), map.get(key));
+        assertEquals(expected.containsKey(key), map.containsKey(key));
+      }
+      else {
+        java.util.Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+        java.util.Iterator<Map.Entry<String, Object>> itExpected = expected.entrySet().iterator();
+        while (it.hasNext()) {
+          Map.Entry<String, Object> entry = it.next();
+          assertEquals(itExpected.next(), entry);
+          if (random.nextInt(4) == 0) {
+            it.remove();
+            itExpected.remove();
+          }
+        }
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+    assertEquals(expected.hashCode(), map.hashCode());
+    assertEquals(expected.toString(), map.toString());
+    assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      entry.setValue("v" + entry.getKey());
+    }
+    map.put(null, "null");
+    for (String key : expected.keySet()) {
+      assertEquals("v" + key, map.get(key));
+    }
+    assertEquals("null", map.get(null));
+    map.clear();
+    assertEquals(Collections.emptyMap(), map);
+
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < 100; i++) {
+      json.append("key").append(i).append(": ").append(i).append(", ");
+    }
+    json.append("key0: 'again'}");
+    Map<String, Object> result = TnJson.parse(json.toString());
+    assertEquals(CompactMap.class, result.getClass());
+    assertEquals(100, result.size());
+    assertEquals("again", result.get("key0"));
+    assertEquals(99, result.get("key99"));
+    assertEquals("key0", result.keySet().iterator().next());
+
+    Map<String, Object> linked = TnJson.parse(json.toString(), new IGetCollection() {
+      @Override
+      public Map<String, Object> forObject(String path) {
+        return new LinkedHashMap<>();
+      }
+
+      @Override
+      public Collection forList(String path) {
+        return null;
+      }
+    });
+    assertEquals(LinkedHashMap.class, linked.getClass());
+    assertEquals(linked, result);
+  }
+
+  @org.junit.Test
+  public void testSharedKeys() {
+    StringBuilder b = new StringBuilder("{records: [");
+    for (int i = 0; i < 100; i++) {
+      b.append("{id: ").append(i).append(", name: 'n").append(i).append("', tags: {a: 1, b: 2}},");
+      b.append("{k0: 0, k1: 1, k2: 2, k3: 3, k4: 4, k5: 5, k6: 6, k7: 7, k8: 8, k9: 9, k10: ").append(i).append("},");
+    }
+    b.append("{name: 'other', id: 1}, {}]}");
+    String json = b.toString();
+    Map<String, Object> expected = TnJson.parse(json);
+
+    TnJsonParser parser = TnJson.parser().sharedKeys().build();
+    Map<String, Object> result = parser.parse(json);
+    assertEquals(expected, result);
+    assertEquals(expected.toString(), result.toString());
+
+    List records = (List) result.get("records");
+    @SuppressWarnings("unchecked")
+    CompactMap<String, Object> first = (CompactMap<String, Object>) records.get(0);
+    @SuppressWarnings("unchecked")
+    CompactMap<String, Object> big = (CompactMap<String, Object>) records.get(1);
+    assertSame(first.keyArray(), ((CompactMap) records.get(198)).keyArray());
+    assertSame(big.keyArray(), ((CompactMap) records.get(199)).keyArray());
+    assertSame(big.indexArray(), ((CompactMap) records.get(199)).indexArray());
+    assertSame(((CompactMap) first.get("tags")).keyArray(), ((CompactMap) ((Map) records.get(2)).get("tags")).keyArray());
+    assertEquals(false, first.keyArray() == ((CompactMap) records.get(200)).keyArray());
+
+    // changed map does not change other maps
+    first.put("new", true);
+    first.remove("id");
+    big.remove("k0");
+    big.put("k11", 11);
+    assertEquals(TnJson.parse("{name: 'n0', tags: {a: 1, b: 2}, new: true}"), first);
+    assertEquals(null, big.get("k0"));
+    assertEquals(11, big.get("k11"));
+    assertEquals(((List) expected.get("records")).subList(2, 202), records.subList(2, 202));
+    assertEquals(((List) expected.get("records")).get(3), records.get(3));
+    assertEquals(0, ((Map) records.get(3)).get("k0"));
+    assertEquals(null, ((Map) records.get(3)).get("k11"));
+
+    // shapes are kept by the parser
+    Map<String, Object> again = parser.parse("[{id: 5, name: 'x', tags: {}}]");
+    assertSame(((CompactMap) records.get(2)).keyArray(), ((CompactMap) ((List) again.get(TnJson.DEFAULT_LIST_KEY)).get(0)).keyArray());
+  }
+
+  @org.junit.Test
+  public void testDeepNesting() {
+    int deep = 100000;
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < deep; i++) {
+      b.append(i % 2 == 0 ? "{a: " : "[1, ");
+    }
+    b.append("'end'");
+    for (int i = deep - 1; i >= 0; i--) {
+      b.append(i % 2 == 0 ? "}" : "]");
+    }
+    String json = b.toString();
+
+    Object value = TnJson.parse(json);
+    for (int i = 0; i < deep; i++) {
+      value = i % 2 == 0 ? ((Map) value).get("a") : ((List) value).get(1);
+    }
+    assertEquals("end", value);
+
+    assertEquals(TnJson.parse("{a: [1, {a: 2}]}"), TnJson.parser().maxDepth(3).parse("{a: [1, {a: 2}]}"));
+    try {
+      TnJson.parser().maxDepth(3).parse("{a: [1, {a: [2]}]}");
+      throw new AssertionError("No exception for deep json");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.a.a", ex.getPath());
+    }
+    try {
+      TnJson.parser().maxDepth(1000).parse(json);
+      throw new AssertionError("No exception for deep json");
+    }
+    catch (ParseException ex) {
+      assertEquals(true, ex.getMessage().startsWith("Nesting is deeper than 1000"));
+    }
+
+    //walking without recursion
+    StringBuilder events = new StringBuilder();
+    IJsonListener listener = new IJsonListener() {
+      @Override
+      public void startObject(String path) {
+        events.append('{');
+      }
+
+      @Override
+      public void key(String key) {
+      }
+
+      @Override
+      public void value(Object value) {
+        events.append(value);
+      }
+
+      @Override
+      public void endObject() {
+        events.append('}');
+      }
+
+      @Override
+      public void startArray(String path) {
+        events.append('[');
+      }
+
+      @Override
+      public void endArray() {
+        events.append(']');
+      }
+    };
+    String arrays = repeat("[", deep) + "1" + repeat("]", deep);
+    TnJson.walk(arrays, listener);
+    assertEquals(arrays, events.toString());
+    try {
+      TnJson.parser().maxDepth(1000).walk(arrays, listener);
+      throw new AssertionError("No exception for deep json");
+    }
+    catch (ParseException ex) {
+      assertEquals(true, ex.getMessage().startsWith("Nesting is deeper than 1000"));
+    }
+    events.setLength(0);
+    TnJson.parser().maxDepth(3).walk(new StringReader("{a: [1, {b: 2}]}"), listener);
+    assertEquals("{[1{2}]}", events.toString());
+
+    try {
+      TnJson.parser().maxDepth(2).paths(Collections.singleton("a.b")).parse("{a: {b: {c: 1}}}");
+      throw new AssertionError("No exception for deep json");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.a.b", ex.getPath());
+    }
+  }
+
+  @org.junit.Test
+  public void testStrict() {
+    String json = "{\"id\": 1, \"name\": \"a\\\"b\\u0041\\/\\nc\", \"list\": [0, -1, 1.5e3, 12345678901, 1E400, 123456789012345678901234567890, true, false, null],"
+                + " \"obj\": {\"empty\": {}, \"none\": []}}";
+    TnJsonParserBuilder strict = TnJson.parser().strict();
+    assertEquals(TnJson.parse(json), strict.parse(json));
+    assertEquals(TnJson.parse(json), strict.parse(json.getBytes(StandardCharsets.UTF_8), 0, json.length()));
+    assertEquals(TnJson.parse(json), strict.parse(new StringReader(json)));
+    assertEquals(TnJson.parse("[1, [2, 3], {}]"), strict.parse(" [1, [2, 3], {}] \r\n"));
+    assertEquals(TnJson.parser().numberLists().sharedKeys().parse(json), TnJson.parser().numberLists().sharedKeys().strict().parse(json));
+
+    // strings and keys are not trimmed
+    Map<String, Object> result = strict.parse("{\" k \": \" v \"}");
+    assertEquals(" v ", result.get(" k "));
+    assertEquals(" v ", TnJson.parser().strict().lazyStrings().parse("{\"k\": \" v \"}").get("k").toString());
+
+    // JSON5 is not accepted
+    String[] invalid = {
+        "{a: 1}", "{'a': 1}", "{\"a\": 'b'}", "{\"a\": 1,}", "[1, 2,]", "[1 2]", "[,1]", "{\"a\": 1 // comment\n}",
+        "{\"a\": 0x10}", "{\"a\": +1}", "{\"a\": .5}", "{\"a\": 5.}", "{\"a\": 01}", "{\"a\": NaN}", "{\"a\": Infinity}",
+        "{\"a\": True}", "{\"a\": \"\\x41\"}", "{\"a\": \"\\u00g1\"}", "{\"a\": 1", "{\"a\": \"b", "[1] x", "x [1]", "{\"a\" 1}"
+    };
+    for (String text : invalid) {
+      try {
+        strict.parse(text);
+        throw new AssertionError("No exception for " + text);
+      }
+      catch (ParseException ex) {
+        // expected
+      }
+    }
+
+    // parsing, which doesn't check standard json, is not allowed
+    List<Runnable> notStrict = Arrays.asList(
+        () -> TnJson.parser().paths(Collections.singleton("a")).strict().parse("{a:0x10, 'b':NaN,}"),
+        () -> TnJson.parser().strict().parallel().parse("[{a:0x10}]"),
+        () -> strict.streamElements(new StringReader("[{a:0x10}]")),
+        () -> strict.walk("{a:0x10}", null),
+        () -> strict.pushParser());
+    for (Runnable parsing : notStrict) {
+      try {
+        parsing.run();
+        throw new AssertionError("No exception for not strict parsing");
+      }
+      catch (IllegalStateException ex) {
+        // expected
+      }
+    }
+
+    try {
+      strict.parse("{\"a\": {\"b\": [1, 2,]}}");
+      throw new AssertionError("No exception for trailing comma");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.a.b", ex.getPath());
+      assertEquals(18, ex.getPosition());
+    }
+  }
+
+  @org.junit.Test
+  public void testLazyNumbers() {
+    String json = "{a: 1, b: -12345678901, c: 123456789012345678901234567890, d: 1.10, e: 0.1000000000000000000001, f: 1e2,"
+                + " g: 0x10, h: .5, i: Infinity, list: [1, 2.50, 3]}";
+    Map<String, Object> expected = TnJson.parse(json);
+    Map<String, Object> result = TnJson.parser().lazyNumbers().numberLists().parse(json);
+
+    for (String key : new String[] {"a", "b", "c", "d", "e", "f"}) {
+      JsonNumber number = (JsonNumber) result.get(key);
+      assertEquals(expected.get(key), number.getValue());
+      assertEquals(((Number) expected.get(key)).longValue(), number.longValue());
+      assertEquals(((Number) expected.get(key)).doubleValue(), number.doubleValue(), 0);
+    }
+    assertEquals("1.10", result.get("d").toString());
+    assertEquals(new BigDecimal("0.1000000000000000000001"), ((JsonNumber) result.get("e")).toBigDecimal());
+    assertEquals(0, new JsonNumber("1.1").compareTo((JsonNumber) result.get("d")));
+    assertEquals(16, result.get("g"));
+    assertEquals(0.5, result.get("h"));
+    assertEquals(Double.POSITIVE_INFINITY, result.get("i"));
+    assertEquals(Arrays.asList(new JsonNumber("1"), new JsonNumber("2.50"), new JsonNumber("3")), result.get("list"));
+    assertEquals(ArrayList.class, result.get("list").getClass());
+
+    // numbers are written with the original text
+    String standard = "{\"id\":5,\"price\":10.50,\"rate\":1E-7,\"big\":-123456789012345678901234567890}";
+    Map<String, Object> record = TnJson.parser().lazyNumbers().strict().parse(standard);
+    record.put("id", 6);
+    assertEquals(standard.replace(":5,", ":6,"), TnJson.toJson(record));
+
+    try {
+      new JsonNumber("0x10");
+      throw new AssertionError("No exception for invalid number");
+    }
+    catch (NumberFormatException ex) {
+      // expected
+    }
+  }
+
+  @org.junit.Test
+  public void testStreamElements() {
+    String json = "// records\n[{id: 1, tags: [1, 2]}, 'two', [3], null,, {id: 4},]";
+    List<Object> elements = TnJson.streamElements(new StringReader(json)).collect(Collectors.toList());
+    assertEquals(TnJson.parse(json).get(TnJson.DEFAULT_LIST_KEY), elements);
+
+    // elements are parsed one by one, so the rest of json is not read
+    assertEquals(TnJson.parse("{id: 1}"), TnJson.streamElements(new StringReader("[{id: 1}, {id: 2} {")).findFirst().get());
+    assertEquals(0L, TnJson.streamElements(new StringReader("")).count());
+
+    // entries of the root object, listener gets the same paths as usual
+    List<String> paths = new ArrayList<>();
+    IGetCollection listener = new IGetCollection() {
+      @Override
+      public Map<String, Object> forObject(String path) {
+        paths.add(path);
+        return null;
+      }
+      @Override
+      public Collection<Object> forList(String path) {
+        paths.add(path);
+        return null;
+      }
+    };
+    Map<String, Object> entries = new LinkedHashMap<>();
+    TnJson.parser().listener(listener).streamElements(new StringReader("{a: 1, b: {c: [2]}, 'd': 'x',}"))
+          .forEach(e -> {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) e;
+            entries.put((String) entry.getKey(), entry.getValue());
+          });
+    assertEquals(TnJson.parse("{a: 1, b: {c: [2]}, 'd': 'x'}"), entries);
+    assertEquals(Arrays.asList("root.b", "root.b.c"), paths);
+
+    try {
+      TnJson.streamElements(new StringReader("{a: {b: 1} c: 2}")).count();
+      throw new AssertionError("No exception for invalid json");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.a", ex.getPath());
+    }
+  }
+
+  private String errorPath(String json) {
+    try {
+      TnJson.parse(json);
+    }
+    catch (ParseException ex) {
+      return ex.getPath();
+    }
+    return null;
+  }
+
+  private long errorPosition(String json) {
+    try {
+      TnJson.parse(json);
+    }
+    catch (ParseException ex) {
+      return ex.getPosition();
+    }
+    return -1;
+  }
+
+  private static String repeat(String str, int count) {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      b.append(str);
+    }
+    return b.toString();
+  }
+
+}
@@ -0,0 +1,102 @@
+package a2u.tn.utils.json;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JsonPushParserTest {
+
+  private static final String JSON = "{\n" +
+                                     "  // comments\n" +
+                                     "  unquoted: 'and you can quote me on that',\n" +
+                                     "  hexadecimal: 0xdecaf,\n" +
+                                     "  big: " + Long.MAX_VALUE + ",\n" +
+                                     "  leadingDecimalPoint: .8675309, /* comment */\n" +
+                                     "  obj: {num: 1, list: [1, 'two', [3], {four: 4},], flag: true},\n" +
+                                     "  empty: null,\n" +
+                                     "  \"backwardsCompatible\": \"with JSON \\\"\\u00e9\\\" é中😀\",\n" +
+                                     "}";
+
+  @Test
+  public void testParts() {
+    Map<String, Object> expected = TnJson.parse(JSON);
+
+    // every part size, including parts which split tokens and multibyte characters
+    char[] chars = JSON.toCharArray();
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    JsonPushParser parser = TnJson.pushParser();
+    for (int size = 1; size <= 16; size++) {
+      for (int i = 0; i < chars.length; i += size) {
+        boolean isLast = i + size >= chars.length;
+        assertEquals(isLast, parser.feed(chars, i, Math.min(size, chars.length - i)));
+      }
+      assertTrue(parser.finish());
+      assertEquals(expected, parser.getResult());
+
+      for (int i = 0; i < bytes.length; i += size) {
+        parser.feed(ByteBuffer.wrap(bytes, i, Math.min(size, bytes.length - i)));
+      }
+      assertTrue(parser.hasResult());
+      assertEquals(expected, parser.getResult());
+      assertNull(parser.getResult());
+    }
+
+    // many jsons one by one
+    String many = "[1, 2] {a: 'b'}\n{c: [true]}";
+    assertTrue(parser.feed(many.toCharArray(), 0, many.length()));
+    assertEquals(TnJson.parse("[1, 2]"), parser.getResult());
+    assertEquals(TnJson.parse("{a: 'b'}"), parser.getResult());
+    assertEquals(TnJson.parse("{c: [true]}"), parser.getResult());
+    assertFalse(parser.finish());
+
+    // settings of builder
+    JsonPushParser numbers = TnJson.parser().numberLists().pushParser();
+    numbers.feed(ByteBuffer.wrap("{list: [1, 2.5, 3]}".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(NumberList.class, numbers.getResult().get("list").getClass());
+  }
+
+  @Test
+  public void testErrors() {
+    JsonPushParser parser = TnJson.parser().maxDepth(3).pushParser();
+
+    String json = "{a: {b: 1 c: 2}}";
+    try {
+      parser.feed(json.toCharArray(), 0, json.length());
+      fail("No exception for invalid json");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.a.b", ex.getPath());
+      assertEquals(10, ex.getPosition());
+    }
+
+    json = "{a: [[[1]]]}";
+    try {
+      parser.feed(json.toCharArray(), 0, json.length());
+      fail("No exception for deep json");
+    }
+    catch (ParseException ex) {
+      assertTrue(ex.getMessage().startsWith("Nesting is deeper than 3"));
+    }
+
+    // the parser is ready for the next json
+    json = "{a: [1, 2";
+    assertFalse(parser.feed(json.toCharArray(), 0, json.length()));
+    try {
+      parser.finish();
+      fail("No exception for unfinished json");
+    }
+    catch (ParseException ex) {
+      assertEquals("root.a", ex.getPath());
+      assertTrue(ex.getMessage().startsWith("Unexpected end of data"));
+    }
+
+    json = "{a: 1}";
+    assertTrue(parser.feed(json.toCharArray(), 0, json.length()));
+    assertEquals(TnJson.parse(json), parser.getResult());
+  }
+
+}
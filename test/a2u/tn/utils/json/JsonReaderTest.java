@@ -0,0 +1,143 @@
+package a2u.tn.utils.json;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class JsonReaderTest {
+
+  private static final String JSON = "{\n" +
+                                     "  // comments\n" +
+                                     "  unquoted: 'and you can quote me on that',\n" +
+                                     "  hexadecimal: 0xdecaf,\n" +
+                                     "  big: " + Long.MAX_VALUE + ",\n" +
+                                     "  leadingDecimalPoint: .8675309,\n" +
+                                     "  obj: {num: 1, list: [1, 'two', [3], {four: 4},], flag: true},\n" +
+                                     "  empty: null,\n" +
+                                     "  \"backwardsCompatible\": \"with JSON\",\n" +
+                                     "}";
+
+  @Test
+  public void testTokens() throws Exception {
+    testTokens(TnJson.reader(JSON));
+    testTokens(TnJson.reader(new StringReader(JSON)));
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    testTokens(TnJson.reader(bytes, 0, bytes.length));
+  }
+
+  private void testTokens(JsonReader reader) throws Exception {
+    assertNull(reader.getToken());
+
+    assertEquals(JsonReader.Token.START_OBJECT, reader.nextToken());
+    assertEquals("root", reader.getPath());
+
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals("unquoted", reader.getString());
+    assertEquals("root.unquoted", reader.getPath());
+    assertEquals(JsonReader.Token.STRING, reader.nextToken());
+    assertEquals("and you can quote me on that", reader.getString());
+
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals(JsonReader.Token.NUMBER, reader.nextToken());
+    assertEquals(0xdecaf, reader.getLong());
+
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals(JsonReader.Token.NUMBER, reader.nextToken());
+    assertEquals(new BigInteger(String.valueOf(Long.MAX_VALUE)), reader.getNumber());
+    assertEquals(Long.MAX_VALUE, reader.getLong());
+
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals(JsonReader.Token.NUMBER, reader.nextToken());
+    assertEquals(0.8675309, reader.getDouble(), 0);
+
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals("obj", reader.getString());
+    assertEquals(JsonReader.Token.START_OBJECT, reader.nextToken());
+    assertEquals("root.obj", reader.getPath());
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals(JsonReader.Token.NUMBER, reader.nextToken());
+    assertEquals(1, reader.getInt());
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+    assertEquals("root.obj.list", reader.getPath());
+    assertEquals(JsonReader.Token.NUMBER, reader.nextToken());
+    assertEquals(JsonReader.Token.STRING, reader.nextToken());
+    assertEquals("two", reader.getValue());
+    assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+    assertEquals(JsonReader.Token.NUMBER, reader.nextToken());
+    assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+    assertEquals(JsonReader.Token.START_OBJECT, reader.nextToken());
+    reader.skipValue();
+    assertEquals(JsonReader.Token.END_OBJECT, reader.getToken());
+    assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals(JsonReader.Token.BOOLEAN, reader.nextToken());
+    assertTrue(reader.getBoolean());
+    assertEquals(JsonReader.Token.END_OBJECT, reader.nextToken());
+    assertEquals("root.obj", reader.getPath());
+
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals(JsonReader.Token.NULL, reader.nextToken());
+    assertNull(reader.getValue());
+
+    assertEquals(JsonReader.Token.KEY, reader.nextToken());
+    assertEquals("backwardsCompatible", reader.getString());
+    assertEquals(JsonReader.Token.STRING, reader.nextToken());
+
+    assertEquals(JsonReader.Token.END_OBJECT, reader.nextToken());
+    assertEquals(JsonReader.Token.END_DOCUMENT, reader.nextToken());
+    assertEquals(JsonReader.Token.END_DOCUMENT, reader.nextToken());
+  }
+
+  @Test
+  public void testSkipValue() throws Exception {
+    JsonReader reader = TnJson.reader(JSON);
+    reader.nextToken();
+    int keys = 0;
+    while (reader.nextToken() == JsonReader.Token.KEY) {
+      keys++;
+      if (reader.getString().equals("backwardsCompatible")) {
+        reader.nextToken();
+        assertEquals("with JSON", reader.getString());
+      }
+      else {
+        reader.skipValue();
+      }
+    }
+    assertEquals(7, keys);
+    assertEquals(JsonReader.Token.END_OBJECT, reader.getToken());
+    assertEquals(JsonReader.Token.END_DOCUMENT, reader.nextToken());
+
+    reader = TnJson.reader("[{a: '}]'}, 2] // [");
+    assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+    reader.skipValue();
+    assertEquals(JsonReader.Token.END_ARRAY, reader.getToken());
+    assertEquals(JsonReader.Token.END_DOCUMENT, reader.nextToken());
+  }
+
+  @Test
+  public void testIncorrectness() throws Exception {
+    testException("{a 1}");
+    testException("{a: 1 b: 2}");
+    testException("{a: [1, 2}");
+    testException("{a: ");
+  }
+
+  private void testException(String json) throws Exception {
+    JsonReader reader = TnJson.reader(json);
+    try {
+      while (reader.nextToken() != JsonReader.Token.END_DOCUMENT) {
+        //read all
+      }
+      fail("No exception for " + json);
+    }
+    catch (ParseException ex) {
+      System.out.println("Expected Exception: " + ex.getMessage() + " - Ok.");
+    }
+  }
+
+}